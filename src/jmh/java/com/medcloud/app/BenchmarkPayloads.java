@@ -0,0 +1,46 @@
+package com.medcloud.app;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Contenidos de prueba para los benchmarks: un PDF mínimo seguido de bytes pseudoaleatorios
+ * (reproducibles por semilla) hasta completar el tamaño pedido.
+ */
+public final class BenchmarkPayloads {
+
+    private static final byte[] PDF_HEADER = "%PDF-1.7\n%âãÏÓ\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Convierte un tamaño como "1KB", "10MB" o "512" en bytes.
+     */
+    public static int parseSize(String size) {
+        String value = size.trim().toUpperCase(Locale.ROOT);
+        if (value.endsWith("MB")) {
+            return Integer.parseInt(value.substring(0, value.length() - 2)) * 1024 * 1024;
+        }
+        if (value.endsWith("KB")) {
+            return Integer.parseInt(value.substring(0, value.length() - 2)) * 1024;
+        }
+        return Integer.parseInt(value);
+    }
+
+    public static byte[] pdf(int sizeBytes, long seed) {
+        byte[] content = new byte[Math.max(sizeBytes, PDF_HEADER.length)];
+        new SplittableRandom(seed).nextBytes(content);
+        System.arraycopy(PDF_HEADER, 0, content, 0, PDF_HEADER.length);
+        return content;
+    }
+
+    /**
+     * Contenido Base64 cuyo binario decodificado ocupa sizeBytes.
+     */
+    public static String pdfBase64(int sizeBytes, long seed) {
+        return Base64.getEncoder().encodeToString(pdf(sizeBytes, seed));
+    }
+}
@@ -0,0 +1,54 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.BenchmarkPayloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo del tamaño binario de un contenido Base64: decodificación por bloques con
+ * Base64ContentStream (la usada al ingerir) frente a decodificar el arreglo completo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class Base64ContentSizeBenchmark {
+
+    @Param({"1KB", "1MB", "10MB", "100MB"})
+    public String payloadSize;
+
+    private String base64;
+    private final byte[] buffer = new byte[65536];
+
+    @Setup
+    public void setUp() {
+        base64 = BenchmarkPayloads.pdfBase64(BenchmarkPayloads.parseSize(payloadSize), 42);
+    }
+
+    @Benchmark
+    public long streamingDecode() throws IOException {
+        long size = 0;
+        try (InputStream in = Base64ContentStream.decode(base64)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+            }
+        }
+        return size;
+    }
+
+    @Benchmark
+    public long fullArrayDecode() {
+        return Base64.getDecoder().decode(base64).length;
+    }
+}
@@ -0,0 +1,164 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.BenchmarkPayloads;
+import com.medcloud.app.MedCloudApplication;
+import com.medcloud.app.domain.dto.ClinicalDocumentCreateRequest;
+import com.medcloud.app.domain.dto.ClinicalDocumentDto;
+import com.medcloud.app.domain.dto.ClinicalDocumentPage;
+import com.medcloud.app.domain.dto.ClinicalDocumentUploadMetadata;
+import com.medcloud.app.domain.dto.DocumentContent;
+import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.persistence.entity.EpsEntity;
+import com.medcloud.app.persistence.jpa.JpaUser;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Subida y lectura de extremo a extremo por los métodos del servicio (sin HTTP), contra un
+ * PostgreSQL embebido y un BlobStorage en un directorio temporal. Cada subida usa contenido
+ * distinto para que la deduplicación por SHA-256 no evite la escritura del blob.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DocumentUploadReadBenchmark {
+
+    private static final String PATIENT_DOCUMENT_NUMBER = "1000000001";
+
+    @Param({"1KB", "1MB", "10MB"})
+    public String payloadSize;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+    private Path dataDir;
+    private ClinicalDocumentServiceImpl documentService;
+    private String epsId;
+    private String documentId;
+    private final byte[] buffer = new byte[65536];
+
+    @Setup(Level.Trial)
+    public void startApplication() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataDir = Files.createTempDirectory("medcloud-jmh");
+        context = new SpringApplicationBuilder(MedCloudApplication.class)
+                .properties(Map.of(
+                        "spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true",
+                        "spring.datasource.username", "postgres",
+                        "spring.datasource.password", "",
+                        "spring.jpa.hibernate.ddl-auto", "create",
+                        "spring.show-sql", "false",
+                        "server.port", "0",
+                        "medcloud.storage.path", dataDir.resolve("documents").toString(),
+                        "medcloud.search.path", dataDir.resolve("search-index").toString(),
+                        "logging.level.root", "WARN"))
+                .run();
+        documentService = context.getBean(ClinicalDocumentServiceImpl.class);
+
+        EpsEntity eps = new EpsEntity();
+        eps.setUsername("eps-jmh");
+        eps.setEmail("eps-jmh@medcloud.test");
+        eps.setPasswordHash("not-used");
+        eps.setEpsName("EPS Benchmark");
+        eps.setNit("900000001");
+        epsId = context.getBean(JpaUser.class).save(eps).getId().toString();
+
+        int size = BenchmarkPayloads.parseSize(payloadSize);
+        documentId = documentService.uploadDocument(request(BenchmarkPayloads.pdfBase64(size, 0))).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws IOException {
+        context.close();
+        postgres.close();
+        FileSystemUtils.deleteRecursively(dataDir);
+    }
+
+    /**
+     * Contenido único por invocación; se prepara fuera del tiempo medido.
+     */
+    @State(Scope.Thread)
+    public static class UploadContent {
+        private byte[] content;
+        private String base64;
+        private long sequence;
+
+        @Setup(Level.Trial)
+        public void allocate(DocumentUploadReadBenchmark benchmark) {
+            content = BenchmarkPayloads.pdf(BenchmarkPayloads.parseSize(benchmark.payloadSize), Thread.currentThread().getId());
+        }
+
+        @Setup(Level.Invocation)
+        public void next() {
+            long value = ++sequence;
+            for (int i = 1; i <= Long.BYTES; i++) {
+                content[content.length - i] = (byte) value;
+                value >>>= 8;
+            }
+            base64 = Base64.getEncoder().encodeToString(content);
+        }
+    }
+
+    private ClinicalDocumentCreateRequest request(String base64) {
+        return new ClinicalDocumentCreateRequest(PATIENT_DOCUMENT_NUMBER, "Paciente Benchmark",
+                LocalDate.of(1980, 1, 1), "Control", false, epsId,
+                "Dra. Benchmark", "79000000", "Medicina interna",
+                DocumentKind.LAB_REPORT, "resultado.pdf", base64, "application/pdf", 1);
+    }
+
+    private ClinicalDocumentUploadMetadata metadata() {
+        return new ClinicalDocumentUploadMetadata(PATIENT_DOCUMENT_NUMBER, "Paciente Benchmark",
+                LocalDate.of(1980, 1, 1), "Control", false, epsId,
+                "Dra. Benchmark", "79000000", "Medicina interna",
+                DocumentKind.LAB_REPORT, "resultado.pdf", "application/pdf");
+    }
+
+    @Benchmark
+    public ClinicalDocumentDto uploadBase64(UploadContent upload) {
+        return documentService.uploadDocument(request(upload.base64));
+    }
+
+    @Benchmark
+    public ClinicalDocumentDto uploadStream(UploadContent upload) {
+        return documentService.uploadDocumentStream(metadata(), new ByteArrayInputStream(upload.content));
+    }
+
+    @Benchmark
+    public long readContent() throws IOException {
+        DocumentContent content = documentService.getDocumentContent(documentId);
+        long size = 0;
+        try (InputStream in = content.openStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+            }
+        }
+        return size;
+    }
+
+    @Benchmark
+    public ClinicalDocumentPage readHistoryPage() {
+        return documentService.getDocumentPageByPatientDocumentNumber(PATIENT_DOCUMENT_NUMBER, null, 50, "desc");
+    }
+}
@@ -0,0 +1,47 @@
+package com.medcloud.app.domain.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validación de fortaleza (expresiones regulares) y verificación BCrypt según el costo
+ * configurado en security.password.bcrypt-strength.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "Medcloud2024!";
+
+    @Param({"4", "10", "12"})
+    public int bcryptStrength;
+
+    private PasswordHasher passwordHasher;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        passwordHasher = new PasswordHasher(new BCryptPasswordEncoder(bcryptStrength));
+        hash = passwordHasher.hash(PASSWORD);
+    }
+
+    @Benchmark
+    public void validateStrength() {
+        passwordHasher.validateStrength(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordHasher.matches(PASSWORD, hash);
+    }
+}
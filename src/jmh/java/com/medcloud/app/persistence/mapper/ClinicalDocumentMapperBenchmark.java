@@ -0,0 +1,78 @@
+package com.medcloud.app.persistence.mapper;
+
+import com.medcloud.app.BenchmarkPayloads;
+import com.medcloud.app.domain.dto.ClinicalDocumentDto;
+import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.persistence.entity.ClinicalDocument;
+import com.medcloud.app.persistence.entity.EpsEntity;
+import com.medcloud.app.persistence.entity.PatientEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de mapear documentos a DTO según el tamaño del contenido Base64 que viaja en la respuesta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ClinicalDocumentMapperBenchmark {
+
+    @Param({"1KB", "1MB", "10MB", "100MB"})
+    public String payloadSize;
+
+    private final ClinicalDocumentMapper mapper = new ClinicalDocumentMapper();
+    private ClinicalDocument document;
+    private List<ClinicalDocument> documents;
+
+    @Setup
+    public void setUp() {
+        int size = BenchmarkPayloads.parseSize(payloadSize);
+
+        PatientEntity patient = new PatientEntity();
+        patient.setId(UUID.randomUUID());
+        patient.setDocumentNumber("1000000001");
+        patient.setFullName("Paciente Benchmark");
+
+        EpsEntity eps = new EpsEntity();
+        eps.setId(UUID.randomUUID());
+        eps.setEpsName("EPS Benchmark");
+
+        document = new ClinicalDocument();
+        document.setId(UUID.randomUUID());
+        document.setPatient(patient);
+        document.setUploadedBy(eps);
+        document.setKind(DocumentKind.LAB_REPORT);
+        document.setFilename("resultado.pdf");
+        document.setMimeType("application/pdf");
+        document.setSizeBytes(size);
+        document.setDoctorName("Dra. Benchmark");
+        document.setDoctorDocumentNumber("79000000");
+        document.setDoctorSpecialty("Medicina interna");
+        document.setUploadedAt(OffsetDateTime.now());
+        document.setFileContentBase64(BenchmarkPayloads.pdfBase64(size, 42));
+
+        documents = List.of(document, document, document, document, document,
+                document, document, document, document, document);
+    }
+
+    @Benchmark
+    public ClinicalDocumentDto toDto() {
+        return mapper.toDto(document);
+    }
+
+    @Benchmark
+    public List<ClinicalDocumentDto> toDtoList() {
+        return mapper.toDtoList(documents);
+    }
+}
@@ -0,0 +1,109 @@
+package com.medcloud.app.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emisión y verificación de tokens JWT. tokenCount es el número de tokens distintos que
+ * se verifican en rotación: por encima de jwt.cache.max-entries la cache deja de acertar.
+ * parseRequestRebuildingParser reproduce la validación anterior a la cache (clave y parser nuevos y tres
+ * verificaciones por petición) como línea base:
+ * ./gradlew jmh -Pjmh.includes=JwtUtilBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "defaultSecretKeyThatShouldBeAtLeast256BitsLongForHS256Algorithm";
+    private static final long EXPIRATION_MS = 86_400_000L;
+    private static final long CACHE_MAX_ENTRIES = 10_000L;
+
+    @Param({"1", "1000", "100000"})
+    public int tokenCount;
+
+    private JwtUtil cachedJwtUtil;
+    private JwtUtil uncachedJwtUtil;
+    private EpsUserDetails user;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        cachedJwtUtil = jwtUtil(CACHE_MAX_ENTRIES);
+        uncachedJwtUtil = jwtUtil(0);
+
+        tokens = new String[tokenCount];
+        for (int i = 0; i < tokenCount; i++) {
+            tokens[i] = cachedJwtUtil.generateToken(user("eps" + i + "@medcloud.com"));
+        }
+        user = user("eps@medcloud.com");
+    }
+
+    private static JwtUtil jwtUtil(long cacheMaxEntries) {
+        JwtUtil jwtUtil = new JwtUtil(new VerifiedTokenCache(cacheMaxEntries));
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", EXPIRATION_MS);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static EpsUserDetails user(String email) {
+        return new EpsUserDetails(UUID.randomUUID(), 0, email, "hash", true,
+                List.of(new SimpleGrantedAuthority("ROLE_EPS")));
+    }
+
+    private String nextToken() {
+        String token = tokens[next];
+        next = next + 1 == tokens.length ? 0 : next + 1;
+        return token;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachedJwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Claims parseClaimsCached() {
+        return cachedJwtUtil.parseClaims(nextToken());
+    }
+
+    @Benchmark
+    public Claims parseClaimsUncached() {
+        return uncachedJwtUtil.parseClaims(nextToken());
+    }
+
+    /**
+     * Lo que hacía una petición antes: extractUsername en el filtro y extractUsername y
+     * extractExpiration en validateToken, cada uno con su propia clave HMAC y su propio parser.
+     */
+    @Benchmark
+    public Claims parseRequestRebuildingParser() {
+        String token = nextToken();
+        Claims claims = null;
+        for (int i = 0; i < 3; i++) {
+            claims = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        }
+        return claims;
+    }
+}
@@ -0,0 +1,25 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.BulkItemStatus;
+
+import java.util.UUID;
+
+/**
+ * Resultado de un documento dentro de una subida masiva.
+ * index es la posición del documento en el lote; documentId solo existe si se creó
+ * y error solo si falló.
+ */
+public record ClinicalDocumentBulkItemResult(
+        int index,
+        BulkItemStatus status,
+        UUID documentId,
+        String error
+) {
+    public static ClinicalDocumentBulkItemResult created(int index, UUID documentId) {
+        return new ClinicalDocumentBulkItemResult(index, BulkItemStatus.CREATED, documentId, null);
+    }
+
+    public static ClinicalDocumentBulkItemResult failed(int index, String error) {
+        return new ClinicalDocumentBulkItemResult(index, BulkItemStatus.FAILED, null, error);
+    }
+}
@@ -0,0 +1,20 @@
+package com.medcloud.app.domain.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * DTO de entrada (Request) para la subida masiva de documentos clínicos.
+ * Cada documento se valida por separado en el servicio: un documento inválido
+ * se reporta en su resultado sin rechazar el resto del lote.
+ */
+@Value
+public class ClinicalDocumentBulkRequest {
+
+    @NotEmpty(message = "El lote debe contener al menos un documento.")
+    @Size(max=1000, message = "El lote no puede exceder los 1000 documentos.")
+    List<ClinicalDocumentCreateRequest> documents;
+}
@@ -0,0 +1,13 @@
+package com.medcloud.app.domain.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una subida masiva: un resultado por documento, en el mismo orden del lote.
+ */
+public record ClinicalDocumentBulkResult(
+        int created,
+        int failed,
+        List<ClinicalDocumentBulkItemResult> items
+) {
+}
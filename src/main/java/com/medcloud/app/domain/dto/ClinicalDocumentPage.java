@@ -0,0 +1,14 @@
+package com.medcloud.app.domain.dto;
+
+import java.util.List;
+
+/**
+ * Página de metadatos de documentos clínicos con paginación por cursor (keyset).
+ * nextCursor es un token opaco para pedir la siguiente página; es nulo en la última.
+ */
+public record ClinicalDocumentPage(
+        List<ClinicalDocumentSummary> items,
+        String nextCursor,
+        boolean hasMore
+) {
+}
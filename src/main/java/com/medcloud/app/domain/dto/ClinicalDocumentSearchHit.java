@@ -0,0 +1,22 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Documento encontrado por la búsqueda de texto, con su puntaje de relevancia.
+ */
+public record ClinicalDocumentSearchHit(
+        UUID id,
+        UUID patientId,
+        UUID uploadedByEpsId,
+        DocumentKind kind,
+        String filename,
+        String doctorName,
+        String doctorSpecialty,
+        OffsetDateTime uploadedAt,
+        float score
+) {
+}
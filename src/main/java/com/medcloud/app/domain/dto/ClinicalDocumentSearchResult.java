@@ -0,0 +1,14 @@
+package com.medcloud.app.domain.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de una búsqueda de documentos.
+ * totalHits es exacto si totalHitsExact es true; si no, es una cota inferior.
+ */
+public record ClinicalDocumentSearchResult(
+        long totalHits,
+        boolean totalHitsExact,
+        List<ClinicalDocumentSearchHit> items
+) {
+}
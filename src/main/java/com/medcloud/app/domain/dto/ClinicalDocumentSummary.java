@@ -0,0 +1,28 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * DTO de salida con los metadatos de un documento clínico, sin su contenido.
+ * Se construye directamente desde una proyección JPQL, así la columna del contenido nunca se lee.
+ */
+public record ClinicalDocumentSummary(
+        UUID id,
+        UUID patientId,
+        UUID uploadedByEpsId,
+        String epsName,
+        String doctorName,
+        String doctorDocumentNumber,
+        String doctorSpecialty,
+        boolean patientDiagnosisInProgress,
+        DocumentKind kind,
+        String filename,
+        String mimeType,
+        long sizeBytes,
+        String contentSha256,
+        OffsetDateTime uploadedAt
+) {
+}
@@ -0,0 +1,61 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * DTO de entrada (Request) con los metadatos de una subida binaria por streaming.
+ * Contiene los mismos datos que ClinicalDocumentCreateRequest, excepto el contenido,
+ * que viaja como parte binaria o cuerpo application/octet-stream.
+ */
+@Value
+public class ClinicalDocumentUploadMetadata {
+
+    // Datos del paciente (para crear si no existe)
+    @NotBlank(message = "La cédula del paciente es requerida.")
+    String patientDocumentNumber;
+
+    @NotBlank(message = "El nombre completo del paciente es requerido.")
+    @Size(max=120, message = "El nombre no puede exceder los 120 caracteres.")
+    String patientFullName;
+
+    @NotNull(message = "La fecha de nacimiento del paciente es requerida.")
+    LocalDate patientBirthDate;
+
+    @Size(max=1000, message = "El tratamiento no puede exceder los 1000 caracteres.")
+    String patientTreatment;
+
+    @NotNull(message = "El estado del diagnóstico es requerido.")
+    Boolean patientDiagnosisInProgress;
+
+    @NotBlank(message = "El ID de la EPS que sube es requerido.")
+    @Pattern(regexp = "^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$", flags = Pattern.Flag.CASE_INSENSITIVE, message = "El ID de la EPS debe ser un UUID válido.")
+    String uploadedByEpsId;
+
+    // Datos del médico que carga la historia clínica
+    @NotBlank(message = "El nombre del médico es requerido.")
+    @Size(max=120, message = "El nombre del médico no puede exceder los 120 caracteres.")
+    String doctorName;
+
+    @NotBlank(message = "La cédula del médico es requerida.")
+    String doctorDocumentNumber;
+
+    @Size(max=60, message = "La especialidad del médico no puede exceder los 60 caracteres.")
+    String doctorSpecialty;
+
+    @NotNull(message = "El tipo de documento es requerido.")
+    DocumentKind kind;
+
+    @NotBlank
+    @Size(max=200, message = "El nombre del archivo no puede exceder los 200 caracteres.")
+    String filename;
+
+    @Size(max=120, message = "El tipo MIME no puede exceder los 120 caracteres.")
+    String mimeType;
+}
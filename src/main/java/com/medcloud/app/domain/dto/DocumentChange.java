@@ -0,0 +1,23 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Cambio publicado en el feed de documentos (GET /clinical-documents/changes): un documento nuevo.
+ * sequence es creciente y se envía como id del evento SSE; el cliente lo devuelve en Last-Event-ID
+ * al reconectarse para recibir lo que se perdió. Solo lleva metadatos, nunca el contenido.
+ */
+public record DocumentChange(
+        long sequence,
+        UUID documentId,
+        String patientDocumentNumber,
+        UUID uploadedByEpsId,
+        DocumentKind kind,
+        String filename,
+        String mimeType,
+        OffsetDateTime uploadedAt
+) {
+}
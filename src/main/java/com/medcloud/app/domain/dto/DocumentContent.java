@@ -0,0 +1,33 @@
+package com.medcloud.app.domain.dto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Contenido binario de un documento listo para enviarse.
+ * Si el contenido es un archivo local se expone su ruta (file) para enviarlo sin copias;
+ * si no, se expone un flujo (stream) que el llamador debe cerrar. Exactamente uno no es nulo.
+ */
+public record DocumentContent(
+        DocumentContentRef ref,
+        Path file,
+        InputStream stream
+) {
+
+    public static DocumentContent ofFile(DocumentContentRef ref, Path file) {
+        return new DocumentContent(ref, file, null);
+    }
+
+    public static DocumentContent ofStream(DocumentContentRef ref, InputStream stream) {
+        return new DocumentContent(ref, null, stream);
+    }
+
+    /**
+     * Abre el contenido como flujo, sea cual sea su origen.
+     */
+    public InputStream openStream() throws IOException {
+        return file != null ? Files.newInputStream(file) : stream;
+    }
+}
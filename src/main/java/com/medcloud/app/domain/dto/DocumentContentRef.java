@@ -0,0 +1,23 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.ContentCodec;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Datos necesarios para servir el contenido de un documento sin cargar la fila completa.
+ * blobKey es nulo para los documentos antiguos que guardan el contenido en Base64.
+ * sizeBytes es el tamaño original; codec indica cómo está guardado el blob (nulo equivale a IDENTITY).
+ */
+public record DocumentContentRef(
+        UUID id,
+        String filename,
+        String mimeType,
+        long sizeBytes,
+        String blobKey,
+        ContentCodec codec,
+        String contentSha256,
+        OffsetDateTime uploadedAt
+) {
+}
@@ -0,0 +1,23 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Campos de un documento clínico (y de su paciente) que se indexan para la búsqueda de texto.
+ */
+public record DocumentSearchEntry(
+        UUID id,
+        UUID patientId,
+        String patientDocumentNumber,
+        UUID uploadedByEpsId,
+        DocumentKind kind,
+        String filename,
+        String doctorName,
+        String doctorSpecialty,
+        String patientTreatment,
+        OffsetDateTime uploadedAt
+) {
+}
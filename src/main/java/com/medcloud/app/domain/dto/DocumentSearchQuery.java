@@ -0,0 +1,23 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Consulta de búsqueda de documentos: texto libre más filtros opcionales (nulos = sin filtro).
+ * @param text Texto a buscar en nombre de archivo, médico, especialidad y tratamiento; vacío = todos.
+ * @param sortByDate true para ordenar por fecha de subida (más recientes primero) en lugar de por relevancia.
+ */
+public record DocumentSearchQuery(
+        String text,
+        DocumentKind kind,
+        UUID uploadedByEpsId,
+        String patientDocumentNumber,
+        OffsetDateTime from,
+        OffsetDateTime to,
+        boolean sortByDate,
+        int limit
+) {
+}
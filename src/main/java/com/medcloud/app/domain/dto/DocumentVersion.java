@@ -0,0 +1,22 @@
+package com.medcloud.app.domain.dto;
+
+/**
+ * Lo que puede cambiar en la representación JSON de un documento: el contenido es inmutable
+ * (contentSha256) y del paciente solo se expone si tiene un diagnóstico en curso.
+ * contentSha256 es nulo para documentos antiguos sin digest.
+ */
+public record DocumentVersion(
+        String contentSha256,
+        boolean patientDiagnosisInProgress
+) {
+
+    /**
+     * Identificador de la versión para un ETag fuerte, o nulo si el documento no tiene digest.
+     */
+    public String tag() {
+        if (contentSha256 == null) {
+            return null;
+        }
+        return contentSha256 + (patientDiagnosisInProgress ? "-1" : "-0");
+    }
+}
@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.dto;
+
+import java.util.UUID;
+
+public record EpsTokenState(
+        UUID id,
+        int tokenVersion,
+        boolean enabled
+) {
+}
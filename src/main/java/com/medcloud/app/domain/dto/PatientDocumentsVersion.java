@@ -0,0 +1,23 @@
+package com.medcloud.app.domain.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Versión del historial de un paciente. Los documentos no se modifican ni se eliminan, y el
+ * estado del diagnóstico del paciente solo cambia con una subida, así que la cantidad y la
+ * fecha del más reciente identifican el contenido de los listados.
+ */
+public record PatientDocumentsVersion(
+        Long count,
+        OffsetDateTime latestUploadedAt
+) {
+
+    public String tag() {
+        long documents = count != null ? count : 0;
+        if (documents == 0 || latestUploadedAt == null) {
+            return "0";
+        }
+        long micros = latestUploadedAt.toEpochSecond() * 1_000_000 + latestUploadedAt.getNano() / 1_000;
+        return documents + "-" + Long.toString(micros, 36);
+    }
+}
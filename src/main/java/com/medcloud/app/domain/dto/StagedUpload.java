@@ -0,0 +1,26 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.ContentCodec;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Subida aceptada en modo asíncrono: metadatos validados y contenido ya guardado en el BlobStorage.
+ * Es lo que se escribe en el spool; con esto el escritor en segundo plano crea el documento
+ * sin volver a leer el contenido.
+ * sha256 y sizeBytes son los del contenido original; blobSha256 y storedSizeBytes los del blob.
+ */
+public record StagedUpload(
+        UUID uploadId,
+        OffsetDateTime acceptedAt,
+        ClinicalDocumentUploadMetadata metadata,
+        String blobKey,
+        String blobSha256,
+        long storedSizeBytes,
+        ContentCodec codec,
+        String detectedMimeType,
+        String sha256,
+        long sizeBytes
+) {
+}
@@ -0,0 +1,33 @@
+package com.medcloud.app.domain.dto;
+
+import com.medcloud.app.domain.enums.StagedUploadState;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * DTO de salida con el estado de una subida asíncrona.
+ * documentId solo está presente cuando el documento ya se guardó (PERSISTED);
+ * error solo cuando la subida se rechazó (FAILED). acceptedAt puede ser nulo si el estado
+ * se obtuvo de la BD después de un reinicio.
+ */
+public record StagedUploadStatus(
+        UUID uploadId,
+        StagedUploadState state,
+        UUID documentId,
+        String error,
+        OffsetDateTime acceptedAt
+) {
+
+    public static StagedUploadStatus accepted(StagedUpload upload) {
+        return new StagedUploadStatus(upload.uploadId(), StagedUploadState.ACCEPTED, null, null, upload.acceptedAt());
+    }
+
+    public static StagedUploadStatus persisted(UUID uploadId, UUID documentId, OffsetDateTime acceptedAt) {
+        return new StagedUploadStatus(uploadId, StagedUploadState.PERSISTED, documentId, null, acceptedAt);
+    }
+
+    public static StagedUploadStatus failed(UUID uploadId, String error, OffsetDateTime acceptedAt) {
+        return new StagedUploadStatus(uploadId, StagedUploadState.FAILED, null, error, acceptedAt);
+    }
+}
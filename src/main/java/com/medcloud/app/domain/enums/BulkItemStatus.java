@@ -0,0 +1,9 @@
+package com.medcloud.app.domain.enums;
+
+/**
+ * Estado de cada documento en una subida masiva.
+ */
+public enum BulkItemStatus {
+    CREATED,
+    FAILED
+}
@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.enums;
+
+/**
+ * Codificación con la que se guarda el contenido de un documento en el BlobStorage.
+ * IDENTITY guarda los bytes tal cual; DEFLATE los comprime (zlib).
+ */
+public enum ContentCodec {
+    IDENTITY,
+    DEFLATE
+}
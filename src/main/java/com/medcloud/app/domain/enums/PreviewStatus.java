@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.enums;
+
+/**
+ * Estado de la vista previa de un documento clínico.
+ * Nulo mientras está pendiente (aún no generada o con reintentos disponibles).
+ */
+public enum PreviewStatus {
+    READY,
+    FAILED
+}
@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.enums;
+
+/**
+ * Estado de una subida aceptada en modo asíncrono (202 Accepted).
+ */
+public enum StagedUploadState {
+    ACCEPTED,
+    PERSISTED,
+    FAILED
+}
@@ -0,0 +1,27 @@
+package com.medcloud.app.domain.event;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Evento de dominio publicado cada vez que se guarda un documento clínico nuevo.
+ * Lleva los metadatos del documento y del paciente para que los oyentes no vuelvan a leer la BD.
+ * Se publica dentro de la transacción; los oyentes usan @TransactionalEventListener para
+ * actuar solo si la transacción se confirma.
+ */
+public record ClinicalDocumentUploadedEvent(
+        UUID documentId,
+        UUID patientId,
+        String patientDocumentNumber,
+        String patientTreatment,
+        UUID uploadedByEpsId,
+        DocumentKind kind,
+        String filename,
+        String mimeType,
+        String doctorName,
+        String doctorSpecialty,
+        OffsetDateTime uploadedAt
+) {
+}
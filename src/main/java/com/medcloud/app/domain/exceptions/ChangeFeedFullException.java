@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.exceptions;
+
+/**
+ * Excepción de Dominio cuando el feed de cambios alcanzó su máximo de suscriptores (código HTTP 503).
+ */
+public class ChangeFeedFullException extends RuntimeException {
+    public ChangeFeedFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.exceptions;
+
+/**
+ * Excepción de Dominio para fallos de lectura/escritura del contenido de un documento (código HTTP 500).
+ */
+public class DocumentStorageException extends RuntimeException {
+    public DocumentStorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
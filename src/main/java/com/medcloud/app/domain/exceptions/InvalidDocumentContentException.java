@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.exceptions;
+
+/**
+ * Excepción de Dominio para contenido de documento vacío o inválido (código HTTP 400).
+ */
+public class InvalidDocumentContentException extends RuntimeException {
+    public InvalidDocumentContentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.exceptions;
+
+/**
+ * Excepción de Dominio para parámetros de paginación inválidos: cursor, tamaño u orden (código HTTP 400).
+ */
+public class InvalidPaginationException extends RuntimeException {
+    public InvalidPaginationException(String message) {
+        super(message);
+    }
+}
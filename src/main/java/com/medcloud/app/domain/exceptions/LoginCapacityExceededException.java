@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.exceptions;
+
+/**
+ * Excepción de Dominio cuando el pool de verificación de contraseñas está lleno (código HTTP 429).
+ */
+public class LoginCapacityExceededException extends RuntimeException {
+    public LoginCapacityExceededException(String message) {
+        super(message);
+    }
+}
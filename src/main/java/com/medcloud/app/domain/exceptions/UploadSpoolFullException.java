@@ -0,0 +1,10 @@
+package com.medcloud.app.domain.exceptions;
+
+/**
+ * Excepción de Dominio cuando el spool de subidas asíncronas alcanzó su máximo de pendientes (código HTTP 503).
+ */
+public class UploadSpoolFullException extends RuntimeException {
+    public UploadSpoolFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,55 @@
+package com.medcloud.app.domain.repository;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Contrato (puerto de salida) para el almacenamiento del contenido binario de los documentos.
+ * La fila de clinical_documents solo guarda la referencia, el digest y el tamaño del blob;
+ * el contenido vive en la implementación configurada (medcloud.storage.backend).
+ */
+public interface BlobStorage {
+
+    /**
+     * Referencia a un blob almacenado.
+     * @param key Clave con la que se recupera el blob.
+     * @param sha256 Digest SHA-256 (hex) del contenido almacenado.
+     * @param sizeBytes Tamaño del contenido almacenado en bytes.
+     */
+    record BlobReference(String key, String sha256, long sizeBytes) {
+    }
+
+    /**
+     * Guarda el contenido leyéndolo por bloques, sin cargarlo completo en memoria.
+     * Contenidos idénticos producen la misma referencia y se almacenan una sola vez.
+     * @param content Flujo con el contenido; no se cierra.
+     * @return La referencia del blob almacenado.
+     */
+    BlobReference store(InputStream content);
+
+    /**
+     * Abre el contenido de un blob para lectura. El llamador debe cerrar el flujo.
+     * @param key La clave del blob.
+     * @return Un flujo con el contenido.
+     */
+    InputStream open(String key);
+
+    /**
+     * Ruta local del blob, si la implementación lo guarda en el sistema de archivos.
+     * Permite enviarlo con transferencia zero-copy (sendfile / FileChannel.transferTo).
+     * @param key La clave del blob.
+     * @return La ruta del archivo, o vacío si el blob no es un archivo local.
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    /**
+     * Fuerza a disco un blob ya guardado, para quien necesita que sobreviva a una caída
+     * antes de confirmar la operación (p. ej. la subida asíncrona antes de responder 202).
+     * @param key La clave del blob.
+     */
+    default void sync(String key) {
+    }
+}
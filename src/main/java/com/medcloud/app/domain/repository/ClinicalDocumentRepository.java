@@ -1,6 +1,14 @@
 package com.medcloud.app.domain.repository;
 
+import com.medcloud.app.domain.dto.ClinicalDocumentSummary;
+import com.medcloud.app.domain.dto.DocumentContentRef;
+import com.medcloud.app.domain.dto.DocumentSearchEntry;
+import com.medcloud.app.domain.dto.DocumentVersion;
+import com.medcloud.app.domain.dto.PatientDocumentsVersion;
+import com.medcloud.app.domain.enums.DocumentKind;
 import com.medcloud.app.persistence.entity.ClinicalDocument;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -20,5 +28,88 @@ public interface ClinicalDocumentRepository {
 
     Optional<ClinicalDocument> findById(UUID id);
     List<ClinicalDocument> findByPatientId(UUID patientId);
+
+    /**
+     * Lista los metadatos (sin contenido) de los documentos de un paciente.
+     * @param patientId El UUID del paciente.
+     * @return Los resúmenes, del más reciente al más antiguo.
+     */
+    List<ClinicalDocumentSummary> findSummariesByPatientId(UUID patientId);
+
+    /**
+     * Lista una página de metadatos ordenada por (uploadedAt, id), posterior a la posición dada.
+     * @param patientId El UUID del paciente.
+     * @param afterUploadedAt Fecha de la última fila de la página anterior, o nulo para la primera página.
+     * @param afterId ID de la última fila de la página anterior, o nulo para la primera página.
+     * @param ascending Orden ascendente (más antiguos primero) o descendente.
+     * @param limit Número máximo de filas.
+     * @return Los resúmenes de la página.
+     */
+    List<ClinicalDocumentSummary> findSummaryPage(UUID patientId, OffsetDateTime afterUploadedAt, UUID afterId,
+                                                  boolean ascending, int limit);
+
+    /**
+     * Lista los campos indexables de los documentos, ordenados por ID, para reconstruir el índice de búsqueda.
+     * @param afterId ID del último documento del lote anterior, o nulo para el primer lote.
+     * @param limit Número máximo de filas.
+     */
+    List<DocumentSearchEntry> findSearchEntries(UUID afterId, int limit);
+
+    /**
+     * Campos indexables de varios documentos, en cualquier orden; los IDs sin documento no aparecen.
+     * @param ids IDs de los documentos (un lote del outbox de cambios).
+     */
+    List<DocumentSearchEntry> findSearchEntriesByIds(Collection<UUID> ids);
+
+    /**
+     * Campos indexables de los documentos de un paciente, ordenados por ID, para reindexarlos.
+     * @param afterId ID del último documento del lote anterior, o nulo para el primer lote.
+     * @param limit Número máximo de filas.
+     */
+    List<DocumentSearchEntry> findSearchEntriesByPatient(UUID patientId, UUID afterId, int limit);
+
+    Optional<DocumentContentRef> findContentRefById(UUID id);
+
+    /**
+     * Referencias al contenido de varios documentos, en cualquier orden.
+     * @param ids IDs de los documentos (un lote del historial).
+     */
+    List<DocumentContentRef> findContentRefsByIds(Collection<UUID> ids);
+
+    /**
+     * Versión de un documento para validadores HTTP (ETag), sin leer el contenido.
+     */
+    Optional<DocumentVersion> findVersionById(UUID id);
+
+    /**
+     * Versión del historial de un paciente (cantidad de documentos y fecha del más reciente).
+     */
+    PatientDocumentsVersion findPatientDocumentsVersion(UUID patientId);
+
+    Optional<String> findLegacyContentById(UUID id);
     void deleteById(UUID id);
+
+    /**
+     * Referencia a la vista previa (JPEG) de un documento, o vacío si aún no está lista.
+     */
+    Optional<DocumentContentRef> findPreviewRefById(UUID id);
+
+    /**
+     * IDs de documentos de los tipos dados cuya vista previa está pendiente.
+     * @param limit Número máximo de IDs.
+     */
+    List<UUID> findPendingPreviewIds(Collection<DocumentKind> kinds, int limit);
+
+    void markPreviewReady(UUID id, String blobKey, long sizeBytes);
+
+    /**
+     * Registra un intento fallido de generar la vista previa.
+     * @param maxAttempts Intentos tras los cuales la vista previa queda como fallida (1 = sin reintentos).
+     */
+    void recordPreviewFailure(UUID id, int maxAttempts);
+
+    /**
+     * ID del documento creado por la subida asíncrona con ese upload_id, si ya se guardó.
+     */
+    Optional<UUID> findIdByUploadId(UUID uploadId);
 }
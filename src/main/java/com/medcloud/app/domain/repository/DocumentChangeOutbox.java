@@ -0,0 +1,57 @@
+package com.medcloud.app.domain.repository;
+
+import com.medcloud.app.domain.dto.DocumentChange;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Contrato (puerto de salida) para el outbox transaccional del feed de cambios de documentos.
+ * Los cambios se agregan dentro de la transacción que guarda el documento y se leen en orden de secuencia.
+ */
+public interface DocumentChangeOutbox {
+
+    /**
+     * Agrega un cambio; debe llamarse dentro de la transacción del documento.
+     * @param change El cambio; su secuencia se ignora y la asigna el outbox.
+     */
+    void append(DocumentChange change);
+
+    /**
+     * @return Hasta limit cambios con secuencia mayor que afterId, en orden de secuencia.
+     */
+    List<DocumentChange> findAfter(long afterId, int limit);
+
+    /**
+     * @return Los cambios confirmados con esas secuencias, en orden de secuencia.
+     */
+    List<DocumentChange> findBySequences(Collection<Long> sequences);
+
+    /**
+     * @return Hasta limit cambios subidos por la EPS con secuencia en (afterId, upToId], en orden.
+     */
+    List<DocumentChange> findRangeByEps(UUID epsId, long afterId, long upToId, int limit);
+
+    /**
+     * @return Hasta limit cambios del paciente con secuencia en (afterId, upToId], en orden.
+     */
+    List<DocumentChange> findRangeByPatient(String documentNumber, long afterId, long upToId, int limit);
+
+    /**
+     * @return La secuencia del último cambio, o 0 si el outbox está vacío.
+     */
+    long lastSequence();
+
+    /**
+     * @return La secuencia del cambio más antiguo que se conserva, o 0 si el outbox está vacío.
+     */
+    long firstSequence();
+
+    /**
+     * Elimina los cambios anteriores a cutoff (fuera de la ventana de reenvío).
+     * @return Número de cambios eliminados.
+     */
+    int deleteCreatedBefore(OffsetDateTime cutoff);
+}
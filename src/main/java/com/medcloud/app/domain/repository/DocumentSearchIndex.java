@@ -0,0 +1,56 @@
+package com.medcloud.app.domain.repository;
+
+import com.medcloud.app.domain.dto.ClinicalDocumentSearchResult;
+import com.medcloud.app.domain.dto.DocumentSearchEntry;
+import com.medcloud.app.domain.dto.DocumentSearchQuery;
+
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Contrato (puerto de salida) para el índice de búsqueda de texto de los documentos clínicos.
+ * El índice es embebido: no depende de ningún servicio externo.
+ */
+public interface DocumentSearchIndex {
+
+    /**
+     * Agrega o reemplaza (por ID) un documento en el índice.
+     * Los cambios son visibles para las búsquedas tras el siguiente refresco del índice.
+     * @param entry Los campos indexables del documento.
+     */
+    void index(DocumentSearchEntry entry);
+
+    /**
+     * Busca documentos por texto con filtros, ordenados por relevancia o por fecha.
+     * @param query La consulta.
+     * @return Los documentos encontrados y el total de coincidencias.
+     */
+    ClinicalDocumentSearchResult search(DocumentSearchQuery query);
+
+    /**
+     * @return Número de documentos en el índice.
+     */
+    long count();
+
+    /**
+     * Cuenta los documentos del paciente indexados con un tratamiento distinto del dado
+     * (o indexados sin registrar su tratamiento). Solo ve lo visible tras el último refresco.
+     */
+    long countWithOtherTreatment(UUID patientId, String treatment);
+
+    /**
+     * Guarda la posición en el outbox de cambios hasta la que el índice está al día.
+     * Se confirma a disco junto con los documentos indexados, en el siguiente commit del índice.
+     */
+    void setOutboxCursor(long sequence);
+
+    /**
+     * @return La posición guardada con el último commit, o vacío si el índice nunca la registró.
+     */
+    OptionalLong outboxCursor();
+
+    /**
+     * Hace visibles para las búsquedas los documentos indexados desde el último refresco.
+     */
+    void refresh();
+}
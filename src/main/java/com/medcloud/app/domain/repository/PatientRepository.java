@@ -1,6 +1,8 @@
 package com.medcloud.app.domain.repository;
 
 import com.medcloud.app.persistence.entity.PatientEntity;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,6 +25,22 @@ public interface PatientRepository {
      */
     Optional<PatientEntity> findByDocumentNumber(String documentNumber);
 
+    /**
+     * Busca en una sola consulta los pacientes con cualquiera de los números de documento dados.
+     * @param documentNumbers Los números de documento (cédulas).
+     * @return Los pacientes encontrados; los números sin paciente no aparecen.
+     */
+    List<PatientEntity> findAllByDocumentNumberIn(Collection<String> documentNumbers);
+
+    /**
+     * Inserta o actualiza en una sola sentencia el paciente con la cédula dada, sin carreras entre
+     * subidas concurrentes. No escribe si el paciente existente tiene diagnóstico en curso o si
+     * ningún dato cambió; en ese caso la fila queda bloqueada hasta el fin de la transacción.
+     * @param patient Los datos del paciente (sin ID).
+     * @return El paciente insertado o actualizado, o vacío si no se escribió nada.
+     */
+    Optional<PatientEntity> upsertByDocumentNumber(PatientEntity patient);
+
     /**
      * Guarda una entidad Patient.
      * @param patient La entidad a guardar.
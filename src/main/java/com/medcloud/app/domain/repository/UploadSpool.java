@@ -0,0 +1,39 @@
+package com.medcloud.app.domain.repository;
+
+import com.medcloud.app.domain.dto.StagedUpload;
+import com.medcloud.app.domain.dto.StagedUploadStatus;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Contrato (puerto de salida) para el spool local de subidas asíncronas: un registro append-only
+ * donde cada subida aceptada queda guardada de forma durable antes de responder 202,
+ * y del que un escritor en segundo plano las pasa a la BD.
+ */
+public interface UploadSpool {
+
+    /**
+     * Estado del spool al arrancar.
+     * @param pending Subidas aceptadas que aún no se guardaron en la BD, en orden de aceptación.
+     * @param completed Resultados ya registrados que siguen en el spool (para consultar su estado).
+     */
+    record Recovery(List<StagedUpload> pending, List<StagedUploadStatus> completed) {
+    }
+
+    /**
+     * Agrega la subida al spool y la sincroniza con el disco (fsync) antes de volver.
+     */
+    void append(StagedUpload upload);
+
+    /**
+     * Registra el resultado final (PERSISTED o FAILED) de subidas aceptadas.
+     * Los segmentos cuyas subidas terminaron todas se eliminan.
+     */
+    void complete(Collection<StagedUploadStatus> outcomes);
+
+    /**
+     * Lee el spool después de un reinicio. Se llama una sola vez, antes de cualquier append.
+     */
+    Recovery recover();
+}
@@ -0,0 +1,282 @@
+package com.medcloud.app.domain.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medcloud.app.domain.dto.ClinicalDocumentBulkItemResult;
+import com.medcloud.app.domain.dto.ClinicalDocumentCreateRequest;
+import com.medcloud.app.domain.dto.ClinicalDocumentUploadMetadata;
+import com.medcloud.app.domain.dto.StagedUpload;
+import com.medcloud.app.domain.dto.StagedUploadStatus;
+import com.medcloud.app.domain.enums.BulkItemStatus;
+import com.medcloud.app.domain.exceptions.InvalidUuidException;
+import com.medcloud.app.domain.exceptions.ResourceNotFoundException;
+import com.medcloud.app.domain.exceptions.UploadSpoolFullException;
+import com.medcloud.app.domain.repository.ClinicalDocumentRepository;
+import com.medcloud.app.domain.repository.UploadSpool;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Modo de subida asíncrono (accept-then-persist). Solo existe con medcloud.upload.async.enabled=true.
+ * La petición valida los metadatos, guarda el contenido en el BlobStorage y agrega la subida al spool
+ * local con fsync; con eso responde 202 y una URL de estado, sin tocar la BD.
+ * Un escritor en segundo plano vacía el spool a la BD por lotes (una transacción por lote, como la
+ * subida masiva). Si la BD no responde (mantenimiento, pool agotado) reintenta el mismo lote con
+ * espera exponencial, así la latencia que ve el cliente no depende de la BD.
+ * Memoria acotada: solo los metadatos de hasta max-pending subidas; con el spool lleno responde 503.
+ * Al arrancar, las subidas del spool sin resultado se vuelven a encolar.
+ */
+@Service
+@ConditionalOnProperty(prefix = "medcloud.upload.async", name = "enabled", havingValue = "true")
+public class AsyncUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncUploadService.class);
+
+    private final ClinicalDocumentServiceImpl clinicalDocumentService;
+    private final ClinicalDocumentRepository documentRepository;
+    private final UploadSpool spool;
+    private final int batchSize;
+    private final Duration maxRetryDelay;
+
+    private final BlockingQueue<StagedUpload> queue = new LinkedBlockingQueue<>();
+    // Un permiso por subida pendiente (en el spool y aún no guardada en la BD).
+    private final Semaphore capacity;
+    private final Map<UUID, StagedUploadStatus> pending = new ConcurrentHashMap<>();
+    private final Cache<UUID, StagedUploadStatus> completed;
+    private volatile boolean running;
+    private Thread writer;
+
+    public AsyncUploadService(ClinicalDocumentServiceImpl clinicalDocumentService,
+                              ClinicalDocumentRepository documentRepository,
+                              UploadSpool spool,
+                              MeterRegistry meterRegistry,
+                              @Value("${medcloud.upload.async.max-pending:10000}") int maxPending,
+                              @Value("${medcloud.upload.async.batch-size:100}") int batchSize,
+                              @Value("${medcloud.upload.async.max-retry-delay:30s}") Duration maxRetryDelay,
+                              @Value("${medcloud.upload.async.status-retention:24h}") Duration statusRetention) {
+        this.clinicalDocumentService = clinicalDocumentService;
+        this.documentRepository = documentRepository;
+        this.spool = spool;
+        this.batchSize = batchSize;
+        this.maxRetryDelay = maxRetryDelay;
+        this.capacity = new Semaphore(maxPending);
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(Math.max(maxPending, 100_000))
+                .expireAfterWrite(statusRetention)
+                .build();
+        Gauge.builder("medcloud.upload.async.pending", pending, Map::size)
+                .description("Subidas aceptadas (202) que aún no se guardaron en la BD")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Acepta una subida binaria: la deja en el BlobStorage y en el spool y devuelve su estado (ACCEPTED).
+     * @throws UploadSpoolFullException si hay max-pending subidas sin guardar.
+     */
+    public StagedUploadStatus accept(ClinicalDocumentUploadMetadata metadata, InputStream content) {
+        return stage(uploadId -> clinicalDocumentService.stageUpload(uploadId, metadata, content));
+    }
+
+    /**
+     * Acepta una subida con el contenido en Base64.
+     * @throws UploadSpoolFullException si hay max-pending subidas sin guardar.
+     */
+    public StagedUploadStatus accept(ClinicalDocumentCreateRequest request) {
+        return stage(uploadId -> clinicalDocumentService.stageUpload(uploadId, request));
+    }
+
+    /**
+     * Estado de una subida: primero el de memoria (pendientes y resultados recientes) y,
+     * si ya no está, el documento con ese upload_id en la BD.
+     * @throws ResourceNotFoundException si la subida no existe o su resultado ya expiró.
+     */
+    public StagedUploadStatus getStatus(String uploadIdString) {
+        UUID uploadId;
+        try {
+            uploadId = UUID.fromString(uploadIdString);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUuidException("UUID inválido proporcionado: " + e.getMessage());
+        }
+        StagedUploadStatus status = pending.get(uploadId);
+        if (status == null) {
+            status = completed.getIfPresent(uploadId);
+        }
+        if (status == null) {
+            status = documentRepository.findIdByUploadId(uploadId)
+                    .map(documentId -> StagedUploadStatus.persisted(uploadId, documentId, null))
+                    .orElseThrow(() -> new ResourceNotFoundException("Subida con ID " + uploadIdString + " no encontrada."));
+        }
+        return status;
+    }
+
+    private StagedUploadStatus stage(Function<UUID, StagedUpload> ingest) {
+        if (!capacity.tryAcquire()) {
+            throw new UploadSpoolFullException("Hay demasiadas subidas pendientes. Intente de nuevo en unos segundos.");
+        }
+        try {
+            StagedUpload upload = ingest.apply(UUID.randomUUID());
+            spool.append(upload);
+            StagedUploadStatus status = StagedUploadStatus.accepted(upload);
+            pending.put(upload.uploadId(), status);
+            queue.add(upload);
+            return status;
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Recupera el spool y arranca el escritor cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        UploadSpool.Recovery recovery = spool.recover();
+        recovery.completed().forEach(status -> completed.put(status.uploadId(), status));
+        for (StagedUpload upload : recovery.pending()) {
+            // El semáforo no bloquea la recuperación aunque el máximo haya bajado desde la última ejecución.
+            capacity.tryAcquire();
+            pending.put(upload.uploadId(), StagedUploadStatus.accepted(upload));
+            queue.add(upload);
+        }
+        if (!recovery.pending().isEmpty()) {
+            logger.info("Recovered {} pending uploads from the spool", recovery.pending().size());
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("upload-spool-writer").daemon().start(this::drain);
+    }
+
+    private void drain() {
+        long delayMillis = 0;
+        List<StagedUpload> batch = new ArrayList<>(batchSize);
+        // Subidas de un lote con un error no transitorio: se guardan de a una para aislar la que falla.
+        Deque<StagedUpload> isolated = new ArrayDeque<>();
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    if (!isolated.isEmpty()) {
+                        batch.add(isolated.poll());
+                    } else {
+                        StagedUpload first = queue.poll(1, TimeUnit.SECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - 1);
+                    }
+                }
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                try {
+                    complete(batch, clinicalDocumentService.persistStagedUploads(batch));
+                    delayMillis = 0;
+                } catch (RuntimeException e) {
+                    if (isTransient(e)) {
+                        // BD no disponible (mantenimiento, pool agotado): se reintenta el mismo lote.
+                        delayMillis = nextDelay(delayMillis);
+                        logger.warn("Could not persist {} staged uploads, retrying in {} ms: {}", batch.size(),
+                                delayMillis, e.getMessage());
+                        continue;
+                    }
+                    if (batch.size() > 1) {
+                        isolated.addAll(batch);
+                    } else {
+                        StagedUpload upload = batch.get(0);
+                        logger.warn("Staged upload {} rejected", upload.uploadId(), e);
+                        complete(batch, List.of(ClinicalDocumentBulkItemResult.failed(0,
+                                "No fue posible guardar el documento: " + e.getMessage())));
+                    }
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in upload spool writer", e);
+            }
+        }
+    }
+
+    /**
+     * Errores de conexión o de concurrencia que desaparecen al reintentar: no se pudo abrir la transacción,
+     * excepciones transitorias de Spring o SQLState de conexión (08), servidor no disponible (57P)
+     * y conflicto de serialización o deadlock (40).
+     */
+    static boolean isTransient(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof CannotCreateTransactionException || t instanceof TransientDataAccessException
+                    || t instanceof DataAccessResourceFailureException || t instanceof RecoverableDataAccessException
+                    || t instanceof SQLTransientException || t instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (t instanceof SQLException sql && sql.getSQLState() != null) {
+                String state = sql.getSQLState();
+                if (state.startsWith("08") || state.startsWith("57P") || state.startsWith("40")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void complete(List<StagedUpload> batch, List<ClinicalDocumentBulkItemResult> results) {
+        List<StagedUploadStatus> outcomes = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            StagedUpload upload = batch.get(i);
+            ClinicalDocumentBulkItemResult result = results.get(i);
+            outcomes.add(result.status() == BulkItemStatus.CREATED
+                    ? StagedUploadStatus.persisted(upload.uploadId(), result.documentId(), upload.acceptedAt())
+                    : StagedUploadStatus.failed(upload.uploadId(), result.error(), upload.acceptedAt()));
+        }
+        spool.complete(outcomes);
+        for (StagedUploadStatus outcome : outcomes) {
+            completed.put(outcome.uploadId(), outcome);
+            pending.remove(outcome.uploadId());
+        }
+        capacity.release(batch.size());
+    }
+
+    private long nextDelay(long delayMillis) {
+        return Math.min(Math.max(200, delayMillis * 2), maxRetryDelay.toMillis());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            // El lote en curso termina; lo que quede en la cola sigue en el spool para el próximo arranque.
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
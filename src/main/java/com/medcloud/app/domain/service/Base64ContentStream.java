@@ -0,0 +1,87 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.exceptions.InvalidDocumentContentException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+
+/**
+ * Flujo que decodifica por bloques un contenido Base64 ya recibido como String,
+ * sin crear el arreglo binario completo ni una copia en bytes del texto.
+ * Un carácter inválido se reporta como InvalidDocumentContentException.
+ */
+final class Base64ContentStream extends FilterInputStream {
+
+    private Base64ContentStream(InputStream decoded) {
+        super(decoded);
+    }
+
+    static InputStream decode(String base64) {
+        return new Base64ContentStream(Base64.getDecoder().wrap(new TextInputStream(base64)));
+    }
+
+    @Override
+    public int read() throws IOException {
+        try {
+            return super.read();
+        } catch (IOException e) {
+            throw invalid();
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        try {
+            return super.read(b, off, len);
+        } catch (IOException e) {
+            throw invalid();
+        }
+    }
+
+    private static InvalidDocumentContentException invalid() {
+        return new InvalidDocumentContentException("El contenido Base64 del archivo no es válido.");
+    }
+
+    /**
+     * Expone los caracteres (ASCII) de un CharSequence como bytes.
+     */
+    private static final class TextInputStream extends InputStream {
+        private final CharSequence text;
+        private int position;
+
+        private TextInputStream(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read() {
+            return position < text.length() ? text.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            int remaining = text.length() - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+            int count = Math.min(len, remaining);
+            for (int i = 0; i < count; i++) {
+                char c = text.charAt(position + i);
+                // Un carácter fuera de Latin-1 nunca es Base64 válido; se fuerza el error del decodificador.
+                b[off + i] = c > 0xFF ? (byte) '*' : (byte) c;
+            }
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return text.length() - position;
+        }
+    }
+}
@@ -1,7 +1,23 @@
 package com.medcloud.app.domain.service;
 
+import com.medcloud.app.domain.dto.ClinicalDocumentBulkItemResult;
+import com.medcloud.app.domain.dto.ClinicalDocumentBulkResult;
 import com.medcloud.app.domain.dto.ClinicalDocumentCreateRequest;
 import com.medcloud.app.domain.dto.ClinicalDocumentDto;
+import com.medcloud.app.domain.dto.ClinicalDocumentPage;
+import com.medcloud.app.domain.dto.ClinicalDocumentSummary;
+import com.medcloud.app.domain.dto.ClinicalDocumentUploadMetadata;
+import com.medcloud.app.domain.dto.DocumentContent;
+import com.medcloud.app.domain.dto.DocumentContentRef;
+import com.medcloud.app.domain.dto.PatientDocumentsVersion;
+import com.medcloud.app.domain.dto.StagedUpload;
+import com.medcloud.app.domain.enums.BulkItemStatus;
+import com.medcloud.app.domain.enums.ContentCodec;
+import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.domain.event.ClinicalDocumentUploadedEvent;
+import com.medcloud.app.domain.exceptions.DocumentStorageException;
+import com.medcloud.app.domain.exceptions.InvalidDocumentContentException;
+import com.medcloud.app.domain.exceptions.InvalidPaginationException;
 import com.medcloud.app.domain.exceptions.InvalidUuidException;
 import com.medcloud.app.domain.exceptions.PatientAlreadyInProgressException;
 import com.medcloud.app.domain.exceptions.ResourceNotFoundException;
@@ -9,15 +25,38 @@ import com.medcloud.app.persistence.mapper.ClinicalDocumentMapper;
 import com.medcloud.app.persistence.entity.ClinicalDocument;
 import com.medcloud.app.persistence.entity.PatientEntity;
 import com.medcloud.app.persistence.entity.EpsEntity;
+import com.medcloud.app.domain.repository.BlobStorage;
 import com.medcloud.app.domain.repository.ClinicalDocumentRepository;
 import com.medcloud.app.domain.repository.PatientRepository;
-import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import jakarta.persistence.EntityManager;
 
 @Service
@@ -28,40 +67,33 @@ public class ClinicalDocumentServiceImpl {
     private final ClinicalDocumentMapper documentMapper;
     private final PatientRepository patientRepository;
     private final EntityManager entityManager;
+    private final BlobStorage blobStorage;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ContentCodecPolicy contentCodecPolicy;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DocumentPayloadMetrics payloadMetrics;
 
-    /**
-     * Calcula el tamaño binario real (en bytes) a partir de una cadena Base64.
-     */
-    private long calculateBinarySizeBytes(String base64String) {
-        if (base64String == null || base64String.isEmpty()) {
-            return 0;
-        }
-        try {
-            return java.util.Base64.getDecoder().decode(base64String).length;
-        } catch (IllegalArgumentException e) {
-            System.err.println("Error decodificando Base64 para calcular el tamaño: " + e.getMessage());
-            return 0;
-        }
-    }
+    @Value("${medcloud.pagination.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${medcloud.pagination.max-page-size:200}")
+    private int maxPageSize;
+
+    @Value("${medcloud.bulk.transaction-size:500}")
+    private int bulkTransactionSize;
+
+    @Value("${medcloud.streaming.batch-size:100}")
+    private int streamBatchSize;
 
     @Transactional
     public ClinicalDocumentDto uploadDocument(ClinicalDocumentCreateRequest requestDto) {
         // 1. Buscar o crear paciente por cédula
-        PatientEntity patient = findOrCreatePatient(requestDto);
+        PatientEntity patient = findOrCreatePatient(requestDto.getPatientDocumentNumber(), requestDto.getPatientFullName(),
+                requestDto.getPatientBirthDate(), requestDto.getPatientTreatment(), requestDto.getPatientDiagnosisInProgress());
 
         // 2. Validar y obtener EPS
-        String epsIdString = requestDto.getUploadedByEpsId().toLowerCase();
-        UUID epsUuid;
-        try {
-            epsUuid = UUID.fromString(epsIdString);
-        } catch (IllegalArgumentException e) {
-            throw new InvalidUuidException("UUID de EPS inválido: " + e.getMessage());
-        }
-
-        EpsEntity eps = entityManager.find(EpsEntity.class, epsUuid);
-        if (eps == null) {
-            throw new ResourceNotFoundException("EPS con ID " + epsUuid + " no encontrada");
-        }
+        EpsEntity eps = findEps(parseEpsId(requestDto.getUploadedByEpsId()));
 
         // 3. Mapear DTO a Entidad
         ClinicalDocument document = documentMapper.toEntity(requestDto);
@@ -75,84 +107,591 @@ public class ClinicalDocumentServiceImpl {
         document.setDoctorDocumentNumber(requestDto.getDoctorDocumentNumber());
         document.setDoctorSpecialty(requestDto.getDoctorSpecialty());
 
-        long calculatedSize = calculateBinarySizeBytes(requestDto.getFileContentBase64());
-        document.setSizeBytes(calculatedSize);
+        // El contenido se decodifica por bloques directo al BlobStorage, verificando tipo MIME y kind
+        // en la misma pasada; el tamaño real y el SHA-256 son los del blob.
+        assignBlob(document, ingestBase64(requestDto.getFileContentBase64(), requestDto.getKind(), requestDto.getMimeType()));
 
         // 5. Guardar en la DB
         ClinicalDocument savedDocument = documentRepository.save(document);
+        publishUploaded(savedDocument);
 
-        // 6. Mapear y devolver el DTO de salida
-        return documentMapper.toDto(savedDocument);
+        // 6. Mapear y devolver el DTO de salida (el contenido ya está en memoria en el request)
+        return documentMapper.toDto(savedDocument, requestDto.getFileContentBase64());
     }
 
     /**
-     * Busca un paciente por cédula, si no existe lo crea con los datos del request.
-     * Valida que no haya conflicto con otras EPS si el diagnóstico está en curso.
+     * Sube un documento clínico recibiendo el contenido como flujo binario.
+     * El contenido se guarda en el BlobStorage por bloques antes de abrir la
+     * transacción, así la conexión a la BD no queda retenida mientras el cliente envía el archivo.
+     */
+    public ClinicalDocumentDto uploadDocumentStream(ClinicalDocumentUploadMetadata metadata, InputStream content) {
+        UUID epsUuid = parseEpsId(metadata.getUploadedByEpsId());
+
+        IngestDigest digest = ingest(content, metadata.getKind(), metadata.getMimeType());
+
+        // Si la transacción falla el blob queda sin referencia; al estar direccionado por
+        // contenido puede compartirse con otros documentos, por eso no se borra aquí.
+        return transactionTemplate.execute(status -> {
+            PatientEntity patient = findOrCreatePatient(metadata.getPatientDocumentNumber(), metadata.getPatientFullName(),
+                    metadata.getPatientBirthDate(), metadata.getPatientTreatment(), metadata.getPatientDiagnosisInProgress());
+            EpsEntity eps = findEps(epsUuid);
+
+            ClinicalDocument document = documentMapper.toEntity(metadata);
+            document.setPatient(patient);
+            document.setUploadedBy(eps);
+            assignBlob(document, digest);
+
+            ClinicalDocument savedDocument = documentRepository.save(document);
+            publishUploaded(savedDocument);
+            return documentMapper.toDto(savedDocument);
+        });
+    }
+
+    /**
+     * Sube un lote de documentos clínicos. Cada documento se valida e ingiere por separado;
+     * los que fallan se reportan en su resultado sin abortar el resto.
+     * Los válidos se guardan en transacciones de hasta medcloud.bulk.transaction-size documentos:
+     * las EPS se resuelven con una consulta por transacción (IN), cada paciente con un upsert que
+     * bloquea su fila (en orden de cédula) y los INSERT
+     * se envían por lotes JDBC (hibernate.jdbc.batch_size).
+     * Si la transacción de un grupo falla, todos sus documentos se reportan como fallidos.
+     */
+    public ClinicalDocumentBulkResult uploadDocumentsBulk(List<ClinicalDocumentCreateRequest> requests) {
+        ClinicalDocumentBulkItemResult[] results = new ClinicalDocumentBulkItemResult[requests.size()];
+
+        // 1. Validación e ingesta del contenido fuera de la transacción.
+        List<BulkItem> pending = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ClinicalDocumentCreateRequest request = requests.get(i);
+            try {
+                validateBulkItem(request);
+                UUID epsUuid = parseEpsId(request.getUploadedByEpsId());
+                IngestDigest digest = ingestBase64(request.getFileContentBase64(), request.getKind(), request.getMimeType());
+                pending.add(new BulkItem(i, null, documentMapper.toUploadMetadata(request), epsUuid, digest));
+            } catch (RuntimeException e) {
+                results[i] = ClinicalDocumentBulkItemResult.failed(i, e.getMessage());
+            }
+        }
+
+        // 2. Persistencia por grupos, con consultas por conjunto e INSERT por lotes.
+        for (int from = 0; from < pending.size(); from += bulkTransactionSize) {
+            List<BulkItem> group = pending.subList(from, Math.min(from + bulkTransactionSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> persistBulkGroup(group, results));
+            } catch (RuntimeException e) {
+                for (BulkItem item : group) {
+                    if (results[item.index()] == null || results[item.index()].status() == BulkItemStatus.CREATED) {
+                        results[item.index()] = ClinicalDocumentBulkItemResult.failed(item.index(),
+                                "No fue posible guardar el documento: " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        List<ClinicalDocumentBulkItemResult> items = Arrays.asList(results);
+        int created = (int) items.stream().filter(r -> r.status() == BulkItemStatus.CREATED).count();
+        return new ClinicalDocumentBulkResult(created, items.size() - created, items);
+    }
+
+    /**
+     * Guarda subidas aceptadas en modo asíncrono (contenido ya en el BlobStorage) en una sola transacción,
+     * con las mismas consultas por conjunto e INSERT por lotes que la subida masiva.
+     * Los errores de cada documento (EPS inexistente, paciente con diagnóstico en curso) se devuelven
+     * en su resultado; un fallo de la transacción se propaga para reintentar el lote completo.
+     * Una subida cuyo upload_id ya existe (guardada antes de un reinicio) se devuelve como creada sin repetirla.
+     * @return Un resultado por subida, en el mismo orden (index = posición en la lista).
+     */
+    public List<ClinicalDocumentBulkItemResult> persistStagedUploads(List<StagedUpload> uploads) {
+        List<BulkItem> items = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            StagedUpload upload = uploads.get(i);
+            IngestDigest digest = new IngestDigest(
+                    new BlobStorage.BlobReference(upload.blobKey(), upload.blobSha256(), upload.storedSizeBytes()),
+                    upload.detectedMimeType(), upload.codec(), upload.sha256(), upload.sizeBytes());
+            items.add(new BulkItem(i, upload.uploadId(), upload.metadata(),
+                    parseEpsId(upload.metadata().getUploadedByEpsId()), digest));
+        }
+        ClinicalDocumentBulkItemResult[] results = new ClinicalDocumentBulkItemResult[uploads.size()];
+        transactionTemplate.executeWithoutResult(status -> persistBulkGroup(items, results));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Ingiere el contenido de una subida asíncrona en el BlobStorage (misma validación de tipo MIME
+     * y kind que la subida síncrona), sin tocar la BD.
+     */
+    StagedUpload stageUpload(UUID uploadId, ClinicalDocumentUploadMetadata metadata, InputStream content) {
+        parseEpsId(metadata.getUploadedByEpsId());
+        return toStagedUpload(uploadId, metadata, ingest(content, metadata.getKind(), metadata.getMimeType()));
+    }
+
+    /**
+     * Igual que stageUpload, para una subida con el contenido en Base64.
+     */
+    StagedUpload stageUpload(UUID uploadId, ClinicalDocumentCreateRequest request) {
+        parseEpsId(request.getUploadedByEpsId());
+        IngestDigest digest = ingestBase64(request.getFileContentBase64(), request.getKind(), request.getMimeType());
+        return toStagedUpload(uploadId, documentMapper.toUploadMetadata(request), digest);
+    }
+
+    private StagedUpload toStagedUpload(UUID uploadId, ClinicalDocumentUploadMetadata metadata, IngestDigest digest) {
+        // El 202 promete que la subida sobrevive a una caída: el blob va a disco antes que el spool.
+        blobStorage.sync(digest.blob().key());
+        return new StagedUpload(uploadId, OffsetDateTime.now(), metadata, digest.blob().key(), digest.blob().sha256(),
+                digest.blob().sizeBytes(), digest.codec(), digest.detectedMimeType(), digest.sha256(), digest.sizeBytes());
+    }
+
+    /**
+     * Documento de la subida masiva o asíncrona; uploadId solo existe en las asíncronas.
      */
-    private PatientEntity findOrCreatePatient(ClinicalDocumentCreateRequest requestDto) {
-        Optional<PatientEntity> existingPatient = patientRepository.findByDocumentNumber(requestDto.getPatientDocumentNumber());
+    private record BulkItem(int index, UUID uploadId, ClinicalDocumentUploadMetadata metadata, UUID epsUuid,
+                            IngestDigest digest) {
+    }
+
+    private void persistBulkGroup(List<BulkItem> group, ClinicalDocumentBulkItemResult[] results) {
+        Set<UUID> epsIds = group.stream().map(BulkItem::epsUuid).collect(Collectors.toSet());
+        Map<UUID, EpsEntity> epsById = entityManager
+                .createQuery("select e from EpsEntity e where e.id in :ids", EpsEntity.class)
+                .setParameter("ids", epsIds)
+                .getResultStream()
+                .collect(Collectors.toMap(EpsEntity::getId, Function.identity()));
 
-        if (existingPatient.isPresent()) {
-            PatientEntity patient = existingPatient.get();
+        Map<UUID, UUID> existingByUploadId = findDocumentsByUploadId(group);
 
-            // Si el paciente ya existe y tiene diagnóstico en curso, verificar que sea la misma EPS
-            if (patient.isDiagnosisInProgress()) {
-                // Verificar si alguna EPS ya tiene este paciente en tratamiento
-                // Para una implementación completa, necesitaríamos una tabla de relación EPS-Paciente
-                // Por ahora, lanzamos excepción si ya está en curso
-                throw new PatientAlreadyInProgressException("El paciente ya tiene un diagnóstico en curso con otra EPS");
+        // Cada paciente se crea o bloquea con el mismo upsert de la subida individual, con los datos de su
+        // primer documento válido del grupo y en orden de cédula (TreeMap): una subida concurrente de la
+        // misma cédula nueva no viola el índice único, dos EPS no pasan a la vez la verificación del
+        // diagnóstico en curso, y dos grupos con cédulas en común no se bloquean mutuamente.
+        Map<String, BulkItem> firstByPatient = new TreeMap<>();
+        for (BulkItem item : group) {
+            boolean stored = item.uploadId() != null && existingByUploadId.containsKey(item.uploadId());
+            if (!stored && epsById.containsKey(item.epsUuid())) {
+                firstByPatient.putIfAbsent(item.metadata().getPatientDocumentNumber(), item);
             }
+        }
+        Map<String, PatientEntity> patients = new HashMap<>();
+        for (Map.Entry<String, BulkItem> entry : firstByPatient.entrySet()) {
+            ClinicalDocumentUploadMetadata metadata = entry.getValue().metadata();
+            try {
+                patients.put(entry.getKey(), findOrCreatePatient(metadata.getPatientDocumentNumber(),
+                        metadata.getPatientFullName(), metadata.getPatientBirthDate(), metadata.getPatientTreatment(),
+                        metadata.getPatientDiagnosisInProgress()));
+            } catch (PatientAlreadyInProgressException e) {
+                // Sin entrada en patients: todos los documentos del paciente se rechazan abajo.
+            }
+        }
 
-            // Actualizar datos del paciente si es necesario
-            patient.setFullName(requestDto.getPatientFullName());
-            patient.setBirthDate(requestDto.getPatientBirthDate());
-            patient.setTreatment(requestDto.getPatientTreatment());
-            patient.setDiagnosisInProgress(requestDto.getPatientDiagnosisInProgress());
+        for (BulkItem item : group) {
+            UUID existing = item.uploadId() != null ? existingByUploadId.get(item.uploadId()) : null;
+            if (existing != null) {
+                results[item.index()] = ClinicalDocumentBulkItemResult.created(item.index(), existing);
+                continue;
+            }
+            ClinicalDocumentUploadMetadata metadata = item.metadata();
+            EpsEntity eps = epsById.get(item.epsUuid());
+            if (eps == null) {
+                results[item.index()] = ClinicalDocumentBulkItemResult.failed(item.index(),
+                        "EPS con ID " + item.epsUuid() + " no encontrada");
+                continue;
+            }
+
+            // Misma regla que la subida individual, aplicada en el orden del lote: el primer documento
+            // del paciente ya pasó por el upsert; los siguientes se rechazan si el paciente quedó con
+            // diagnóstico en curso y, si no, actualizan sus datos sobre la fila ya bloqueada.
+            PatientEntity patient = patients.get(metadata.getPatientDocumentNumber());
+            boolean first = firstByPatient.get(metadata.getPatientDocumentNumber()) == item;
+            if (patient == null || (!first && patient.isDiagnosisInProgress())) {
+                results[item.index()] = ClinicalDocumentBulkItemResult.failed(item.index(),
+                        "El paciente ya tiene un diagnóstico en curso con otra EPS");
+                continue;
+            }
+            if (!first) {
+                patient.setFullName(metadata.getPatientFullName());
+                patient.setBirthDate(metadata.getPatientBirthDate());
+                patient.setTreatment(metadata.getPatientTreatment());
+                patient.setDiagnosisInProgress(Boolean.TRUE.equals(metadata.getPatientDiagnosisInProgress()));
+            }
 
-            return patientRepository.save(patient);
+            ClinicalDocument document = documentMapper.toEntity(metadata);
+            document.setPatient(patient);
+            document.setUploadedBy(eps);
+            document.setUploadId(item.uploadId());
+            assignBlob(document, item.digest());
+            entityManager.persist(document);
+            publishUploaded(document);
+
+            results[item.index()] = ClinicalDocumentBulkItemResult.created(item.index(), document.getId());
         }
+    }
 
-        // Crear nuevo paciente
-        PatientEntity newPatient = new PatientEntity();
-        newPatient.setDocumentNumber(requestDto.getPatientDocumentNumber());
-        newPatient.setFullName(requestDto.getPatientFullName());
-        newPatient.setBirthDate(requestDto.getPatientBirthDate());
-        newPatient.setTreatment(requestDto.getPatientTreatment());
-        newPatient.setDiagnosisInProgress(requestDto.getPatientDiagnosisInProgress());
+    private Map<UUID, UUID> findDocumentsByUploadId(List<BulkItem> group) {
+        Set<UUID> uploadIds = group.stream()
+                .map(BulkItem::uploadId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (uploadIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, UUID> existing = new HashMap<>();
+        entityManager.createQuery("select d.uploadId, d.id from ClinicalDocument d where d.uploadId in :ids", Object[].class)
+                .setParameter("ids", uploadIds)
+                .getResultList()
+                .forEach(row -> existing.put((UUID) row[0], (UUID) row[1]));
+        return existing;
+    }
 
-        return patientRepository.save(newPatient);
+    /**
+     * Publica el evento de documento subido; los oyentes actúan después del commit.
+     */
+    private void publishUploaded(ClinicalDocument document) {
+        PatientEntity patient = document.getPatient();
+        eventPublisher.publishEvent(new ClinicalDocumentUploadedEvent(
+                document.getId(),
+                patient.getId(),
+                patient.getDocumentNumber(),
+                patient.getTreatment(),
+                document.getUploadedBy().getId(),
+                document.getKind(),
+                document.getFilename(),
+                document.getMimeType(),
+                document.getDoctorName(),
+                document.getDoctorSpecialty(),
+                document.getUploadedAt()));
+    }
+
+    private void validateBulkItem(ClinicalDocumentCreateRequest request) {
+        if (request == null) {
+            throw new InvalidDocumentContentException("El documento es nulo.");
+        }
+        Set<ConstraintViolation<ClinicalDocumentCreateRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new InvalidDocumentContentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
     }
 
     /**
-     * Obtiene un documento clínico por su ID.
+     * Decodifica el Base64 del request por bloques y lo ingiere, sin crear el arreglo
+     * binario completo en memoria.
      */
-    public ClinicalDocumentDto getDocumentById(String idString) {
-        UUID uuid;
+    private IngestDigest ingestBase64(String base64, DocumentKind kind, String declaredMimeType) {
+        try (InputStream decoded = Base64ContentStream.decode(base64)) {
+            return ingest(decoded, kind, declaredMimeType);
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible leer el contenido del documento", e);
+        }
+    }
+
+    /**
+     * Pasada única de ingesta: el contenido se lee una sola vez, por bloques, y de esa lectura
+     * salen el tamaño decodificado, el SHA-256 y el tipo MIME detectado por números mágicos.
+     * Un tipo MIME o kind incompatible aborta la subida. Según la política por DocumentKind
+     * el contenido se comprime en la misma pasada antes de llegar al BlobStorage.
+     */
+    private IngestDigest ingest(InputStream content, DocumentKind kind, String declaredMimeType) {
+        IngestInputStream ingest = new IngestInputStream(content, kind, declaredMimeType);
+        try {
+            // La cabecera se lee primero para conocer el tipo real y elegir el codec;
+            // luego se devuelve al flujo, así el contenido se sigue leyendo una sola vez.
+            PushbackInputStream source = new PushbackInputStream(ingest, MimeSniffer.HEAD_SIZE);
+            byte[] head = source.readNBytes(MimeSniffer.HEAD_SIZE);
+            if (head.length == 0) {
+                throw new InvalidDocumentContentException("El archivo del documento está vacío.");
+            }
+            source.unread(head);
+
+            ContentCodec codec = contentCodecPolicy.select(kind, ingest.detectedMimeType());
+            if (codec == ContentCodec.IDENTITY) {
+                // Sin compresión el SHA-256 y el tamaño del blob son los del documento.
+                BlobStorage.BlobReference blob = blobStorage.store(source);
+                return new IngestDigest(blob, ingest.detectedMimeType(), codec, blob.sha256(), blob.sizeBytes());
+            }
+            ContentDigestInputStream original = new ContentDigestInputStream(source);
+            BlobStorage.BlobReference blob;
+            try (InputStream encoded = contentCodecPolicy.encode(codec, original)) {
+                blob = blobStorage.store(encoded);
+            }
+            return new IngestDigest(blob, ingest.detectedMimeType(), codec, original.sha256(), original.count());
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible leer el contenido del documento", e);
+        }
+    }
+
+    private void assignBlob(ClinicalDocument document, IngestDigest digest) {
+        document.setBlobKey(digest.blob().key());
+        document.setContentSha256(digest.sha256());
+        document.setSizeBytes(digest.sizeBytes());
+        document.setContentCodec(digest.codec());
+        document.setStoredSizeBytes(digest.blob().sizeBytes());
+        payloadMetrics.recordUpload(document.getKind(), digest.codec(), digest.sizeBytes(), digest.blob().sizeBytes());
+        String declared = MimeSniffer.normalize(document.getMimeType());
+        if (digest.detectedMimeType() != null && (declared == null || declared.equals("application/octet-stream"))) {
+            document.setMimeType(digest.detectedMimeType());
+        }
+    }
+
+    private UUID parseEpsId(String epsIdString) {
         try {
-            uuid = UUID.fromString(idString);
+            return UUID.fromString(epsIdString.toLowerCase());
         } catch (IllegalArgumentException e) {
-            throw new InvalidUuidException("UUID inválido proporcionado: " + e.getMessage());
+            throw new InvalidUuidException("UUID de EPS inválido: " + e.getMessage());
+        }
+    }
+
+    private EpsEntity findEps(UUID epsUuid) {
+        EpsEntity eps = entityManager.find(EpsEntity.class, epsUuid);
+        if (eps == null) {
+            throw new ResourceNotFoundException("EPS con ID " + epsUuid + " no encontrada");
         }
+        return eps;
+    }
+
+    /**
+     * Busca un paciente por cédula, si no existe lo crea con los datos del request.
+     * Valida que no haya conflicto con otras EPS si el diagnóstico está en curso.
+     * Inserción, actualización y validación ocurren en un solo upsert atómico, así dos subidas
+     * concurrentes del mismo paciente nuevo no chocan con el índice único de la cédula.
+     */
+    private PatientEntity findOrCreatePatient(String documentNumber, String fullName, LocalDate birthDate,
+                                              String treatment, Boolean diagnosisInProgress) {
+        PatientEntity candidate = new PatientEntity();
+        candidate.setDocumentNumber(documentNumber);
+        candidate.setFullName(fullName);
+        candidate.setBirthDate(birthDate);
+        candidate.setTreatment(treatment);
+        candidate.setDiagnosisInProgress(Boolean.TRUE.equals(diagnosisInProgress));
+
+        Optional<PatientEntity> written = patientRepository.upsertByDocumentNumber(candidate);
+        if (written.isPresent()) {
+            return written.get();
+        }
+
+        // Sin escritura: el paciente ya existía y su fila quedó bloqueada por el upsert,
+        // así esta lectura ve el mismo estado que decidió no actualizarlo.
+        PatientEntity patient = patientRepository.findByDocumentNumber(documentNumber)
+                .orElseThrow(() -> new IllegalStateException("Paciente " + documentNumber + " no encontrado tras el upsert"));
+
+        // Si el paciente ya existe y tiene diagnóstico en curso, verificar que sea la misma EPS
+        if (patient.isDiagnosisInProgress()) {
+            // Verificar si alguna EPS ya tiene este paciente en tratamiento
+            // Para una implementación completa, necesitaríamos una tabla de relación EPS-Paciente
+            // Por ahora, lanzamos excepción si ya está en curso
+            throw new PatientAlreadyInProgressException("El paciente ya tiene un diagnóstico en curso con otra EPS");
+        }
+
+        // Sin cambios en los datos: no hace falta escribir.
+        return patient;
+    }
+
+    /**
+     * Versión de un documento para un ETag fuerte, leída sin el contenido.
+     * @return La versión, o nulo si el documento es antiguo y no tiene digest del contenido.
+     */
+    @Transactional(readOnly = true)
+    public String getDocumentVersion(String idString) {
+        UUID uuid = parseDocumentId(idString);
+        return documentRepository.findVersionById(uuid)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento clínico con ID " + idString + " no encontrado."))
+                .tag();
+    }
+
+    /**
+     * Versión del historial de un paciente para un ETag fuerte de sus listados.
+     * Se lee como los listados: misma ruta (solo lectura, réplica si está disponible) y la cédula resuelta
+     * por la misma caché, así el ETag nunca es más nuevo que el cuerpo que se lee después.
+     * Sin paciente es la versión del historial vacío.
+     */
+    @Transactional(readOnly = true)
+    public String getPatientDocumentsVersion(String documentNumber) {
+        return patientRepository.findByDocumentNumber(documentNumber)
+                .map(patient -> documentRepository.findPatientDocumentsVersion(patient.getId()))
+                .orElse(new PatientDocumentsVersion(0L, null))
+                .tag();
+    }
+
+    /**
+     * Obtiene un documento clínico por su ID.
+     */
+    @Transactional(readOnly = true)
+    public ClinicalDocumentDto getDocumentById(String idString) {
+        UUID uuid = parseDocumentId(idString);
 
         ClinicalDocument document = documentRepository.findById(uuid)
                 .orElseThrow(() -> new ResourceNotFoundException("Documento clínico con ID " + idString + " no encontrado."));
 
-        return documentMapper.toDto(document);
+        return documentMapper.toDto(document, readContentBase64(document));
+    }
+
+    /**
+     * Recibe cada documento del historial de un paciente junto con su contenido abierto.
+     */
+    @FunctionalInterface
+    public interface DocumentVisitor {
+        void visit(ClinicalDocumentSummary summary, DocumentContent content) throws IOException;
+    }
+
+    /**
+     * Recorre todos los documentos clínicos de un paciente por su cédula, del más reciente al más antiguo,
+     * sin cargar el historial en memoria: los metadatos se leen por lotes keyset (dos consultas cortas por lote)
+     * y el contenido de cada documento se abre solo mientras el visitante lo escribe.
+     * Cada lote se lee en una transacción corta de solo lectura (va a la réplica) que se cierra antes de escribir:
+     * no se abre una transacción para todo el recorrido, así un cliente lento no retiene una conexión del pool.
+     * Si el paciente no existe no visita nada.
+     */
+    public void forEachDocumentByPatientDocumentNumber(String documentNumber, DocumentVisitor visitor) throws IOException {
+        TransactionTemplate readOnly = readOnlyTransaction();
+        Optional<PatientEntity> patient = readOnly.execute(status -> patientRepository.findByDocumentNumber(documentNumber));
+        if (patient.isEmpty()) {
+            return;
+        }
+
+        UUID patientId = patient.get().getId();
+        ClinicalDocumentSummary last = null;
+        while (true) {
+            ClinicalDocumentSummary after = last;
+            List<ClinicalDocumentSummary> batch = readOnly.execute(status -> documentRepository.findSummaryPage(patientId,
+                    after != null ? after.uploadedAt() : null, after != null ? after.id() : null, false, streamBatchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            Map<UUID, DocumentContentRef> refs = readOnly.execute(status -> documentRepository
+                    .findContentRefsByIds(batch.stream().map(ClinicalDocumentSummary::id).toList())
+                    .stream()
+                    .collect(Collectors.toMap(DocumentContentRef::id, Function.identity())));
+            for (ClinicalDocumentSummary summary : batch) {
+                DocumentContentRef ref = refs.get(summary.id());
+                // Solo el contenido antiguo (columna en Base64) necesita la base de datos; el blob se abre fuera.
+                DocumentContent content = ref.blobKey() != null
+                        ? openContent(ref)
+                        : readOnly.execute(status -> openContent(ref));
+                try {
+                    visitor.visit(summary, content);
+                } finally {
+                    if (content.stream() != null) {
+                        content.stream().close();
+                    }
+                }
+            }
+            if (batch.size() < streamBatchSize) {
+                return;
+            }
+            last = batch.get(batch.size() - 1);
+        }
+    }
+
+    /**
+     * Transacción corta de solo lectura con el mismo gestor que {@link #transactionTemplate}.
+     */
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager(), transactionTemplate);
+        readOnly.setReadOnly(true);
+        return readOnly;
     }
 
     /**
-     * Obtiene todos los documentos clínicos asociados a un paciente por su cédula.
+     * Lista los metadatos de los documentos de un paciente por su cédula, sin el contenido.
      */
-    public List<ClinicalDocumentDto> getDocumentsByPatientDocumentNumber(String documentNumber) {
-        Optional<PatientEntity> patientOpt = patientRepository.findByDocumentNumber(documentNumber);
+    @Transactional(readOnly = true)
+    public List<ClinicalDocumentSummary> getDocumentSummariesByPatientDocumentNumber(String documentNumber) {
+        return patientRepository.findByDocumentNumber(documentNumber)
+                .map(patient -> documentRepository.findSummariesByPatientId(patient.getId()))
+                .orElse(List.of());
+    }
 
-        if (patientOpt.isEmpty()) {
-            return List.of(); // Retorna lista vacía si el paciente no existe
+    /**
+     * Obtiene una página del historial de un paciente con paginación keyset por (uploadedAt, id).
+     * El costo de cada página es constante sin importar cuántos documentos tenga el paciente.
+     * @param cursor Token opaco devuelto por la página anterior, o nulo para la primera.
+     * @param limit Tamaño de página (por defecto y máximo configurables).
+     * @param sort "asc" (más antiguos primero) o "desc" (más recientes primero).
+     */
+    @Transactional(readOnly = true)
+    public ClinicalDocumentPage getDocumentPageByPatientDocumentNumber(String documentNumber, String cursor,
+                                                                       Integer limit, String sort) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new InvalidPaginationException("El tamaño de página debe estar entre 1 y " + maxPageSize + ".");
+        }
+        boolean ascending;
+        if (sort == null || sort.equalsIgnoreCase("desc")) {
+            ascending = false;
+        } else if (sort.equalsIgnoreCase("asc")) {
+            ascending = true;
+        } else {
+            throw new InvalidPaginationException("El orden debe ser 'asc' o 'desc'.");
         }
+        DocumentPageCursor after = cursor == null || cursor.isBlank() ? null : DocumentPageCursor.decode(cursor, ascending);
 
-        PatientEntity patient = patientOpt.get();
-        List<ClinicalDocument> documents = documentRepository.findByPatientId(patient.getId());
+        Optional<PatientEntity> patient = patientRepository.findByDocumentNumber(documentNumber);
+        if (patient.isEmpty()) {
+            return new ClinicalDocumentPage(List.of(), null, false);
+        }
 
-        return documentMapper.toDtoList(documents);
+        // Se pide una fila extra para saber si hay más páginas sin hacer un COUNT.
+        List<ClinicalDocumentSummary> rows = documentRepository.findSummaryPage(patient.get().getId(),
+                after != null ? after.uploadedAt() : null, after != null ? after.id() : null, ascending, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<ClinicalDocumentSummary> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            ClinicalDocumentSummary last = items.get(items.size() - 1);
+            nextCursor = new DocumentPageCursor(last.uploadedAt(), last.id(), ascending).encode();
+        }
+        return new ClinicalDocumentPage(List.copyOf(items), nextCursor, hasMore);
+    }
+
+    /**
+     * Abre el contenido binario de un documento. Solo lee la fila completa (Base64) para
+     * documentos antiguos; los demás se sirven directamente desde el BlobStorage.
+     * El contenido comprimido se descomprime como flujo mientras se envía.
+     */
+    @Transactional(readOnly = true)
+    public DocumentContent getDocumentContent(String idString) {
+        UUID uuid = parseDocumentId(idString);
+        DocumentContentRef ref = documentRepository.findContentRefById(uuid)
+                .orElseThrow(() -> new ResourceNotFoundException("Documento clínico con ID " + idString + " no encontrado."));
+        return openContent(ref);
+    }
+
+    private DocumentContent openContent(DocumentContentRef ref) {
+        if (ref.blobKey() != null && ref.codec() != null && ref.codec() != ContentCodec.IDENTITY) {
+            return DocumentContent.ofStream(ref, contentCodecPolicy.decode(ref.codec(), blobStorage.open(ref.blobKey())));
+        }
+        if (ref.blobKey() != null) {
+            return blobStorage.localPath(ref.blobKey())
+                    .map(path -> DocumentContent.ofFile(ref, path))
+                    .orElseGet(() -> DocumentContent.ofStream(ref, blobStorage.open(ref.blobKey())));
+        }
+        byte[] legacy = documentRepository.findLegacyContentById(ref.id())
+                .map(base64 -> Base64.getDecoder().decode(base64))
+                .orElse(new byte[0]);
+        DocumentContentRef legacyRef = new DocumentContentRef(ref.id(), ref.filename(), ref.mimeType(),
+                legacy.length, null, null, ref.contentSha256(), ref.uploadedAt());
+        return DocumentContent.ofStream(legacyRef, new ByteArrayInputStream(legacy));
+    }
+
+    private UUID parseDocumentId(String idString) {
+        try {
+            return UUID.fromString(idString);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUuidException("UUID inválido proporcionado: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Devuelve el contenido en Base64: el de la columna para documentos antiguos,
+     * o el leído del BlobStorage para los demás.
+     */
+    private String readContentBase64(ClinicalDocument document) {
+        if (document.getBlobKey() == null) {
+            return document.getFileContentBase64();
+        }
+        try (InputStream in = contentCodecPolicy.decode(document.getContentCodec(), blobStorage.open(document.getBlobKey()))) {
+            return Base64.getEncoder().encodeToString(in.readAllBytes());
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible leer el contenido del documento " + document.getId(), e);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.enums.ContentCodec;
+import com.medcloud.app.domain.enums.DocumentKind;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Política de compresión del contenido almacenado, por DocumentKind.
+ * Los tipos configurados (por defecto reportes de laboratorio, escaneos y otros) se guardan
+ * comprimidos, salvo que el contenido detectado ya esté comprimido (PNG o JPEG).
+ * La compresión y la descompresión trabajan como flujos, sin cargar el contenido en memoria.
+ */
+@Component
+public class ContentCodecPolicy {
+
+    private static final Set<String> ALREADY_COMPRESSED = Set.of("image/png", "image/jpeg");
+
+    private final Set<DocumentKind> compressedKinds;
+    private final int level;
+
+    public ContentCodecPolicy(@Value("${medcloud.storage.compression.kinds:LAB_REPORT,SCAN,OTHER}") Set<DocumentKind> compressedKinds,
+                              @Value("${medcloud.storage.compression.level:6}") int level) {
+        this.compressedKinds = Set.copyOf(compressedKinds);
+        this.level = level;
+    }
+
+    /**
+     * @param detectedMimeType Tipo MIME detectado por números mágicos, o null si no se reconoció.
+     * @return El codec con el que se debe guardar el contenido.
+     */
+    public ContentCodec select(DocumentKind kind, String detectedMimeType) {
+        if (kind == null || !compressedKinds.contains(kind)) {
+            return ContentCodec.IDENTITY;
+        }
+        if (detectedMimeType != null && ALREADY_COMPRESSED.contains(detectedMimeType)) {
+            return ContentCodec.IDENTITY;
+        }
+        return ContentCodec.DEFLATE;
+    }
+
+    /**
+     * Envuelve el contenido original en un flujo que entrega los bytes codificados.
+     */
+    public InputStream encode(ContentCodec codec, InputStream content) {
+        if (codec == null || codec == ContentCodec.IDENTITY) {
+            return content;
+        }
+        Deflater deflater = new Deflater(level);
+        return new DeflaterInputStream(content, deflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // Un Deflater propio no se libera al cerrar el flujo.
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Envuelve el contenido almacenado en un flujo que entrega los bytes originales.
+     * Un codec nulo (documentos anteriores a la compresión) equivale a IDENTITY.
+     */
+    public InputStream decode(ContentCodec codec, InputStream stored) {
+        if (codec == null || codec == ContentCodec.IDENTITY) {
+            return stored;
+        }
+        return new InflaterInputStream(stored);
+    }
+}
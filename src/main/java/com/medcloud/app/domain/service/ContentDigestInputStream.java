@@ -0,0 +1,81 @@
+package com.medcloud.app.domain.service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Calcula el SHA-256 y el tamaño del contenido original mientras pasa hacia el codec.
+ * Solo se usa cuando el contenido se guarda comprimido: en ese caso el digest del BlobStorage
+ * corresponde a los bytes comprimidos y no al documento.
+ */
+final class ContentDigestInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private long count;
+
+    ContentDigestInputStream(InputStream source) {
+        super(source);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            digest.update((byte) b);
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            digest.update(b, off, read);
+            count += read;
+        }
+        return read;
+    }
+
+    /**
+     * Salta leyendo: el digest y el tamaño incluyen los bytes saltados.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * @return El SHA-256 (hex) del contenido leído; solo es válido al terminar la lectura.
+     */
+    String sha256() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,517 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.dto.DocumentChange;
+import com.medcloud.app.domain.event.ClinicalDocumentUploadedEvent;
+import com.medcloud.app.domain.exceptions.ChangeFeedFullException;
+import com.medcloud.app.domain.repository.DocumentChangeOutbox;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feed de documentos nuevos para los suscriptores SSE (GET /clinical-documents/changes),
+ * alimentado por el outbox transaccional: cada subida agrega su cambio en la misma transacción
+ * que el documento, justo antes del commit.
+ * Un único despachador lee el outbox en orden de secuencia (al confirmarse una subida en esta
+ * instancia o cada poll-interval, para las de otras instancias) y entrega cada cambio solo a los
+ * suscriptores de su EPS o de su paciente, buscándolos por mapa: un suscriptor inactivo cuesta
+ * su registro y un heartbeat periódico, no un hilo ni una consulta.
+ * Un hueco en la secuencia (una transacción que aún no confirma) detiene la entrega hasta gap-timeout,
+ * así la secuencia enviada como Last-Event-ID normalmente no salta ningún cambio. Pasado ese plazo
+ * la entrega sigue y las secuencias saltadas se vuelven a buscar durante late-window: si se confirman
+ * se entregan tarde, fuera de orden. Un suscriptor nuevo anota las secuencias saltadas pendientes al
+ * suscribirse y cada una le llega una sola vez, por su reenvío o por la entrega tardía.
+ * Una secuencia que no aparece en ese plazo (transacción deshecha o demasiado lenta) se registra en el log.
+ * Un cliente que se reconecta con un Last-Event-ID posterior a un cambio tardío solo lo recibe si
+ * se confirma mientras está conectado, y puede recibirlo repetido si ya le llegó por la conexión anterior.
+ * Los envíos van en hilos virtuales: bloquean en la red, no en CPU, y un cliente lento no frena a los demás.
+ * ReentrantLock y no synchronized: un envío que espera el lock no fija su hilo virtual al portador.
+ */
+@Service
+public class DocumentChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentChangeFeed.class);
+
+    // Secuencias saltadas que se siguen buscando a la vez; el resto se da por perdido de inmediato.
+    private static final int MAX_LATE_SEQUENCES = 10_000;
+
+    /**
+     * Destino de los eventos de un suscriptor (p. ej. una conexión SSE).
+     * Las llamadas de un mismo suscriptor nunca son concurrentes.
+     */
+    public interface Sink {
+        void send(DocumentChange change) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        /**
+         * Cierra la conexión; el cliente se reconecta con Last-Event-ID.
+         */
+        void close();
+    }
+
+    /**
+     * Suscripción activa; cancel() la elimina sin cerrar el Sink (p. ej. al terminar la conexión).
+     */
+    public interface Subscription {
+        void cancel();
+    }
+
+    private final DocumentChangeOutbox outbox;
+    private final int batchSize;
+    private final long pollNanos;
+    private final long gapTimeoutNanos;
+    private final long lateWindowNanos;
+    private final long heartbeatNanos;
+    private final int maxSubscribers;
+    private final int subscriberBuffer;
+    private final Duration retention;
+
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    // Protege head, late y el registro de suscriptores frente a la entrega: el reenvío de un suscriptor
+    // nuevo llega hasta head y todo lo posterior le llega por su cola, sin huecos ni duplicados.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<UUID, Set<Subscriber>> byEps = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> byPatient = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Secuencias saltadas tras gap-timeout -> plazo (nanoTime) para que aparezcan. Solo el despachador
+    // la modifica, siempre con lock; subscribe la copia con lock.
+    private final Map<Long, Long> late = new LinkedHashMap<>();
+    private volatile long head;
+    private volatile boolean running;
+    private volatile Thread dispatcher;
+
+    public DocumentChangeFeed(DocumentChangeOutbox outbox,
+                              MeterRegistry meterRegistry,
+                              @Value("${medcloud.changes.batch-size:500}") int batchSize,
+                              @Value("${medcloud.changes.poll-interval:1s}") Duration pollInterval,
+                              @Value("${medcloud.changes.gap-timeout:5s}") Duration gapTimeout,
+                              @Value("${medcloud.changes.late-window:5m}") Duration lateWindow,
+                              @Value("${medcloud.changes.heartbeat-interval:25s}") Duration heartbeatInterval,
+                              @Value("${medcloud.changes.max-subscribers:10000}") int maxSubscribers,
+                              @Value("${medcloud.changes.subscriber-buffer:256}") int subscriberBuffer,
+                              @Value("${medcloud.changes.retention:7d}") Duration retention) {
+        this.outbox = outbox;
+        this.batchSize = batchSize;
+        this.pollNanos = pollInterval.toNanos();
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.lateWindowNanos = lateWindow.toNanos();
+        this.heartbeatNanos = heartbeatInterval.toNanos();
+        this.maxSubscribers = maxSubscribers;
+        this.subscriberBuffer = subscriberBuffer;
+        this.retention = retention;
+        Gauge.builder("medcloud.changes.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Suscriptores conectados al feed de cambios de documentos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Agrega el cambio al outbox dentro de la transacción de la subida, justo antes del commit:
+     * la secuencia se asigna lo más tarde posible y los huecos por transacciones abiertas duran poco.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void recordUploaded(ClinicalDocumentUploadedEvent event) {
+        outbox.append(new DocumentChange(0, event.documentId(), event.patientDocumentNumber(), event.uploadedByEpsId(),
+                event.kind(), event.filename(), event.mimeType(), event.uploadedAt()));
+    }
+
+    /**
+     * Despierta al despachador cuando una subida de esta instancia se confirma.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentCommitted(ClinicalDocumentUploadedEvent event) {
+        Thread thread = dispatcher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Suscribe a los documentos subidos por una EPS.
+     * @param lastEventId Última secuencia recibida (Last-Event-ID), o nulo para recibir solo lo nuevo.
+     * @throws ChangeFeedFullException si hay max-subscribers suscriptores conectados.
+     */
+    public Subscription subscribeToEps(UUID epsId, Long lastEventId, Sink sink) {
+        return subscribe(new Subscriber(epsId, null, lastEventId, sink));
+    }
+
+    /**
+     * Suscribe a los documentos de un paciente (por su cédula), de cualquier EPS.
+     * @param lastEventId Última secuencia recibida (Last-Event-ID), o nulo para recibir solo lo nuevo.
+     * @throws ChangeFeedFullException si hay max-subscribers suscriptores conectados.
+     */
+    public Subscription subscribeToPatient(String documentNumber, Long lastEventId, Sink sink) {
+        return subscribe(new Subscriber(null, documentNumber, lastEventId, sink));
+    }
+
+    private Subscription subscribe(Subscriber subscriber) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new ChangeFeedFullException("Hay demasiados suscriptores conectados. Intente de nuevo en unos segundos.");
+        }
+        long replayUpTo;
+        lock.lock();
+        try {
+            subscribers.add(subscriber);
+            if (subscriber.epsId != null) {
+                byEps.computeIfAbsent(subscriber.epsId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            } else {
+                byPatient.computeIfAbsent(subscriber.patient, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            }
+            subscriber.pendingLate = late.isEmpty() ? Set.of() : Set.copyOf(late.keySet());
+            replayUpTo = head;
+        } finally {
+            lock.unlock();
+        }
+        senders.execute(() -> subscriber.replay(replayUpTo));
+        return () -> subscriber.close(false);
+    }
+
+    /**
+     * Arranca el despachador desde el último cambio del outbox cuando la aplicación está lista.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        head = outbox.lastSequence();
+        running = true;
+        dispatcher = Thread.ofPlatform().name("document-change-dispatcher").daemon().start(this::dispatch);
+    }
+
+    private void dispatch() {
+        long gapSince = 0;
+        long nextHeartbeat = System.nanoTime() + heartbeatNanos;
+        while (running) {
+            int delivered = 0;
+            try {
+                deliverLate();
+                List<DocumentChange> changes = outbox.findAfter(head, batchSize);
+                for (DocumentChange change : changes) {
+                    if (change.sequence() != head + 1) {
+                        // Hueco: una transacción con una secuencia menor aún no confirma o se deshizo.
+                        if (gapSince == 0) {
+                            gapSince = System.nanoTime();
+                        }
+                        if (System.nanoTime() - gapSince < gapTimeoutNanos) {
+                            break;
+                        }
+                        awaitLate(head + 1, change.sequence());
+                    }
+                    publish(change);
+                    gapSince = 0;
+                    delivered++;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not read the document change outbox: {}", e.getMessage());
+            }
+            if (System.nanoTime() - nextHeartbeat >= 0) {
+                subscribers.forEach(Subscriber::heartbeat);
+                nextHeartbeat = System.nanoTime() + heartbeatNanos;
+            }
+            if (delivered < batchSize) {
+                LockSupport.parkNanos(pollNanos);
+            }
+        }
+    }
+
+    private void publish(DocumentChange change) {
+        lock.lock();
+        try {
+            offer(change, false);
+            head = change.sequence();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void offer(DocumentChange change, boolean outOfOrder) {
+        Set<Subscriber> forEps = byEps.get(change.uploadedByEpsId());
+        if (forEps != null) {
+            forEps.forEach(subscriber -> subscriber.offer(change, outOfOrder));
+        }
+        Set<Subscriber> forPatient = byPatient.get(change.patientDocumentNumber());
+        if (forPatient != null) {
+            forPatient.forEach(subscriber -> subscriber.offer(change, outOfOrder));
+        }
+    }
+
+    /**
+     * Registra las secuencias [from, to) que se saltan tras gap-timeout para buscarlas durante late-window.
+     */
+    private void awaitLate(long from, long to) {
+        long deadline = System.nanoTime() + lateWindowNanos;
+        long sequence = from;
+        lock.lock();
+        try {
+            for (; sequence < to && late.size() < MAX_LATE_SEQUENCES; sequence++) {
+                late.put(sequence, deadline);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (sequence < to) {
+            logger.warn("Document changes {} to {} dropped from the live feed: too many pending gaps", sequence, to - 1);
+        }
+    }
+
+    /**
+     * Entrega las secuencias saltadas que ya se confirmaron y descarta las que vencieron su plazo.
+     */
+    private void deliverLate() {
+        if (late.isEmpty()) {
+            return;
+        }
+        List<DocumentChange> committed = outbox.findBySequences(List.copyOf(late.keySet()));
+        lock.lock();
+        try {
+            for (DocumentChange change : committed) {
+                // Se quita y se entrega con el mismo lock: un suscriptor nuevo la ve pendiente o ya entregada.
+                late.remove(change.sequence());
+                logger.debug("Delivering late document change {}", change.sequence());
+                offer(change, true);
+            }
+            long now = System.nanoTime();
+            for (Iterator<Map.Entry<Long, Long>> it = late.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Long, Long> entry = it.next();
+                if (now - entry.getValue() >= 0) {
+                    it.remove();
+                    logger.warn("Document change {} dropped from the live feed: not committed within {} ms",
+                            entry.getKey(), TimeUnit.NANOSECONDS.toMillis(lateWindowNanos));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Elimina del outbox los cambios fuera de la ventana de reenvío (retention).
+     */
+    @Scheduled(fixedDelayString = "${medcloud.changes.prune-ms:3600000}",
+            initialDelayString = "${medcloud.changes.prune-ms:3600000}")
+    public void prune() {
+        int deleted = outbox.deleteCreatedBefore(OffsetDateTime.now().minus(retention));
+        if (deleted > 0) {
+            logger.debug("Pruned {} document changes older than {}", deleted, retention);
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        Thread thread = dispatcher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        subscribers.forEach(subscriber -> subscriber.close(true));
+        senders.shutdown();
+    }
+
+    /**
+     * Suscriptor con su cola de cambios pendientes de enviar. Primero reenvía desde el outbox lo
+     * posterior a Last-Event-ID y luego pasa a vivo; desde entonces un único envío a la vez
+     * vacía la cola. Si la cola se llena (cliente demasiado lento) se cierra la conexión y el
+     * cliente se pone al día con el reenvío al reconectarse.
+     */
+    private final class Subscriber {
+
+        private final UUID epsId;
+        private final String patient;
+        private final Long lastEventId;
+        private final Sink sink;
+        // Secuencias saltadas pendientes al suscribirse: el reenvío puede incluirlas si se confirman
+        // mientras corre. Se asigna con el lock del feed antes de la primera entrega.
+        private Set<Long> pendingLate = Set.of();
+        private final ReentrantLock stateLock = new ReentrantLock();
+        // Protegidos por stateLock.
+        private final ArrayDeque<DocumentChange> queue = new ArrayDeque<>();
+        // Las de pendingLate ya enviadas o encoladas, por el reenvío o por la entrega tardía.
+        private final Set<Long> sentLate = new HashSet<>();
+        private boolean live;
+        private boolean draining;
+        private boolean heartbeatDue;
+        private boolean closed;
+
+        private Subscriber(UUID epsId, String patient, Long lastEventId, Sink sink) {
+            this.epsId = epsId;
+            this.patient = patient;
+            this.lastEventId = lastEventId;
+            this.sink = sink;
+        }
+
+        void offer(DocumentChange change, boolean outOfOrder) {
+            stateLock.lock();
+            try {
+                // Otra instancia pudo haberle enviado ya este cambio antes de la reconexión. Un cambio
+                // tardío tiene una secuencia menor que las ya enviadas y se entrega igual, salvo que el
+                // reenvío de esta conexión ya lo haya enviado (ver la clase DocumentChangeFeed).
+                if (closed || (!outOfOrder && lastEventId != null && change.sequence() <= lastEventId)) {
+                    return;
+                }
+                if (outOfOrder && pendingLate.contains(change.sequence()) && !sentLate.add(change.sequence())) {
+                    return;
+                }
+                if (queue.size() >= subscriberBuffer) {
+                    // Se cierra fuera del despachador, que tiene tomado el lock del feed.
+                    closed = true;
+                    senders.execute(() -> close(true));
+                    return;
+                }
+                queue.add(change);
+                schedule();
+            } finally {
+                stateLock.unlock();
+            }
+        }
+
+        void heartbeat() {
+            stateLock.lock();
+            try {
+                heartbeatDue = true;
+                schedule();
+            } finally {
+                stateLock.unlock();
+            }
+        }
+
+        /**
+         * Si el cambio es una secuencia saltada pendiente al suscribirse, la reclama para el reenvío.
+         * @return false si la entrega tardía ya la encoló.
+         */
+        private boolean claimForReplay(DocumentChange change) {
+            if (!pendingLate.contains(change.sequence())) {
+                return true;
+            }
+            stateLock.lock();
+            try {
+                return sentLate.add(change.sequence());
+            } finally {
+                stateLock.unlock();
+            }
+        }
+
+        private void schedule() {
+            if (live && !draining && !closed) {
+                draining = true;
+                senders.execute(this::drain);
+            }
+        }
+
+        void replay(long upTo) {
+            try {
+                long cursor = lastEventId == null ? upTo : lastEventId;
+                while (cursor < upTo) {
+                    List<DocumentChange> page = epsId != null
+                            ? outbox.findRangeByEps(epsId, cursor, upTo, batchSize)
+                            : outbox.findRangeByPatient(patient, cursor, upTo, batchSize);
+                    for (DocumentChange change : page) {
+                        if (claimForReplay(change)) {
+                            sink.send(change);
+                        }
+                    }
+                    cursor = page.size() < batchSize ? upTo : page.get(page.size() - 1).sequence();
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Change feed replay failed: {}", e.getMessage());
+                close(true);
+                return;
+            }
+            stateLock.lock();
+            try {
+                live = true;
+                schedule();
+            } finally {
+                stateLock.unlock();
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                DocumentChange change;
+                stateLock.lock();
+                try {
+                    change = queue.poll();
+                    if (closed || (change == null && !heartbeatDue)) {
+                        draining = false;
+                        return;
+                    }
+                    heartbeatDue = false;
+                } finally {
+                    stateLock.unlock();
+                }
+                try {
+                    if (change != null) {
+                        sink.send(change);
+                    } else {
+                        sink.heartbeat();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // Conexión cerrada por el cliente: se detecta aquí, a más tardar en el siguiente heartbeat.
+                    close(true);
+                    return;
+                }
+            }
+        }
+
+        void close(boolean closeSink) {
+            stateLock.lock();
+            try {
+                closed = true;
+                queue.clear();
+            } finally {
+                stateLock.unlock();
+            }
+            lock.lock();
+            try {
+                if (!subscribers.remove(this)) {
+                    return;
+                }
+                if (epsId != null) {
+                    byEps.computeIfPresent(epsId, this::without);
+                } else {
+                    byPatient.computeIfPresent(patient, this::without);
+                }
+            } finally {
+                lock.unlock();
+            }
+            subscriberCount.decrementAndGet();
+            if (closeSink) {
+                sink.close();
+            }
+        }
+
+        private Set<Subscriber> without(Object key, Set<Subscriber> set) {
+            set.remove(this);
+            return set.isEmpty() ? null : set;
+        }
+    }
+}
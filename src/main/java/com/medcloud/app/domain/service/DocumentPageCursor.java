@@ -0,0 +1,46 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.exceptions.InvalidPaginationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Posición de la última fila entregada en la paginación keyset (uploadedAt, id).
+ * Se serializa como token Base64 URL opaco que incluye el orden, para que un cursor
+ * no pueda reutilizarse con el orden contrario.
+ */
+record DocumentPageCursor(OffsetDateTime uploadedAt, UUID id, boolean ascending) {
+
+    private static final String VERSION = "v1";
+
+    String encode() {
+        Instant instant = uploadedAt.toInstant();
+        String raw = String.join("|", VERSION, ascending ? "a" : "d",
+                Long.toString(instant.getEpochSecond()), Integer.toString(instant.getNano()), id.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static DocumentPageCursor decode(String token, boolean ascending) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 5 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("formato desconocido");
+            }
+            if (ascending != "a".equals(parts[1])) {
+                throw new InvalidPaginationException("El cursor no corresponde al orden solicitado.");
+            }
+            // Un epoch fuera de rango (cursor manipulado) lanza DateTimeException o ArithmeticException.
+            Instant instant = Instant.ofEpochSecond(Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+            return new DocumentPageCursor(instant.atOffset(ZoneOffset.UTC), UUID.fromString(parts[4]), ascending);
+        } catch (IllegalArgumentException | DateTimeException | ArithmeticException e) {
+            throw new InvalidPaginationException("Cursor de paginación inválido.");
+        }
+    }
+}
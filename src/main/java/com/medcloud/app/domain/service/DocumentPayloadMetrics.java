@@ -0,0 +1,60 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.enums.ContentCodec;
+import com.medcloud.app.domain.enums.DocumentKind;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Distribuciones de tamaño de los contenidos subidos y descargados (en bytes), con histograma
+ * para Prometheus. Las etiquetas tienen pocos valores posibles (kind, codec, rango) para no
+ * multiplicar las series.
+ */
+@Component
+public class DocumentPayloadMetrics {
+
+    private static final double MIN_EXPECTED_BYTES = 1024;
+    private static final double MAX_EXPECTED_BYTES = 256.0 * 1024 * 1024;
+
+    private final MeterRegistry registry;
+
+    public DocumentPayloadMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Tamaño original del documento y tamaño ocupado en el BlobStorage (distinto si se comprimió).
+     */
+    public void recordUpload(DocumentKind kind, ContentCodec codec, long sizeBytes, long storedSizeBytes) {
+        String kindTag = kind != null ? kind.name() : "UNKNOWN";
+        String codecTag = codec != null ? codec.name() : ContentCodec.IDENTITY.name();
+        summary("medcloud.documents.upload.size", "Tamaño original de los documentos subidos")
+                .tags("kind", kindTag, "codec", codecTag)
+                .register(registry)
+                .record(sizeBytes);
+        summary("medcloud.documents.upload.stored.size", "Tamaño de los documentos subidos en el almacenamiento")
+                .tags("kind", kindTag, "codec", codecTag)
+                .register(registry)
+                .record(storedSizeBytes);
+    }
+
+    /**
+     * Bytes enviados al cliente en una descarga de contenido (completa o un rango).
+     */
+    public void recordDownload(long bytes, boolean partial) {
+        summary("medcloud.documents.download.size", "Bytes enviados por descarga de contenido")
+                .tag("range", partial ? "partial" : "full")
+                .register(registry)
+                .record(bytes);
+    }
+
+    private static DistributionSummary.Builder summary(String name, String description) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED_BYTES)
+                .maximumExpectedValue(MAX_EXPECTED_BYTES);
+    }
+}
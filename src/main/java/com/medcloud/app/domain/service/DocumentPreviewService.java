@@ -0,0 +1,186 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.dto.DocumentContent;
+import com.medcloud.app.domain.dto.DocumentContentRef;
+import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.domain.event.ClinicalDocumentUploadedEvent;
+import com.medcloud.app.domain.exceptions.InvalidUuidException;
+import com.medcloud.app.domain.exceptions.ResourceNotFoundException;
+import com.medcloud.app.domain.repository.BlobStorage;
+import com.medcloud.app.domain.repository.ClinicalDocumentRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Genera en segundo plano las vistas previas (miniaturas JPEG) de los documentos IMAGE, SCAN y PDF
+ * y las guarda en el BlobStorage. Cada subida encola su documento tras el commit en un pool acotado;
+ * si la cola está llena, si la generación falla o si el documento es anterior al pipeline,
+ * el barrido periódico lo vuelve a encolar hasta agotar los intentos (el intervalo del barrido
+ * hace de espera entre reintentos). Usa hilos de plataforma: rasterizar consume CPU.
+ */
+@Service
+public class DocumentPreviewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentPreviewService.class);
+    private static final String PREVIEW_MIME_TYPE = "image/jpeg";
+
+    private final ClinicalDocumentRepository documentRepository;
+    private final ClinicalDocumentServiceImpl clinicalDocumentService;
+    private final BlobStorage blobStorage;
+    private final PreviewRenderer renderer;
+    private final ThreadPoolTaskExecutor executor;
+    private final Set<DocumentKind> kinds;
+    private final int maxAttempts;
+    private final int sweepBatchSize;
+    // Documentos encolados o en proceso: el barrido no los vuelve a encolar.
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    public DocumentPreviewService(ClinicalDocumentRepository documentRepository,
+                                  ClinicalDocumentServiceImpl clinicalDocumentService,
+                                  BlobStorage blobStorage,
+                                  @Value("${medcloud.preview.kinds:IMAGE,SCAN,PDF}") Set<DocumentKind> kinds,
+                                  @Value("${medcloud.preview.max-dimension:320}") int maxDimension,
+                                  @Value("${medcloud.preview.max-source-pixels:200000000}") long maxSourcePixels,
+                                  @Value("${medcloud.preview.jpeg-quality:0.8}") float jpegQuality,
+                                  @Value("${medcloud.preview.threads:2}") int threads,
+                                  @Value("${medcloud.preview.queue-capacity:256}") int queueCapacity,
+                                  @Value("${medcloud.preview.max-attempts:3}") int maxAttempts,
+                                  @Value("${medcloud.preview.sweep-batch-size:100}") int sweepBatchSize) {
+        this.documentRepository = documentRepository;
+        this.clinicalDocumentService = clinicalDocumentService;
+        this.blobStorage = blobStorage;
+        this.renderer = new PreviewRenderer(maxDimension, maxSourcePixels, jpegQuality);
+        this.kinds = kinds.isEmpty() ? EnumSet.noneOf(DocumentKind.class) : EnumSet.copyOf(kinds);
+        this.maxAttempts = maxAttempts;
+        this.sweepBatchSize = sweepBatchSize;
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(threads);
+        this.executor.setMaxPoolSize(threads);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setThreadNamePrefix("document-preview-");
+        this.executor.initialize();
+    }
+
+    /**
+     * Encola la vista previa solo si la transacción de la subida se confirmó.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentUploaded(ClinicalDocumentUploadedEvent event) {
+        if (kinds.contains(event.kind())) {
+            submit(event.documentId());
+        }
+    }
+
+    /**
+     * Encola los documentos con la vista previa pendiente: reintentos, los que no cupieron
+     * en la cola y los subidos antes de existir el pipeline.
+     */
+    @Scheduled(fixedDelayString = "${medcloud.preview.sweep-ms:60000}",
+            initialDelayString = "${medcloud.preview.sweep-ms:60000}")
+    public void sweep() {
+        if (kinds.isEmpty()) {
+            return;
+        }
+        List<UUID> pending = documentRepository.findPendingPreviewIds(kinds, sweepBatchSize);
+        for (UUID id : pending) {
+            if (!submit(id)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Abre la vista previa de un documento para enviarla.
+     * @throws ResourceNotFoundException si el documento no existe o su vista previa aún no está lista.
+     */
+    public DocumentContent getPreview(String idString) {
+        UUID id;
+        try {
+            id = UUID.fromString(idString);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUuidException("UUID inválido proporcionado: " + e.getMessage());
+        }
+        DocumentContentRef ref = documentRepository.findPreviewRefById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Vista previa del documento " + idString + " no disponible."));
+        DocumentContentRef preview = new DocumentContentRef(ref.id(), previewFilename(ref.filename()), PREVIEW_MIME_TYPE,
+                ref.sizeBytes(), ref.blobKey(), ref.codec(), ref.contentSha256(), ref.uploadedAt());
+        return blobStorage.localPath(preview.blobKey())
+                .map(path -> DocumentContent.ofFile(preview, path))
+                .orElseGet(() -> DocumentContent.ofStream(preview, blobStorage.open(preview.blobKey())));
+    }
+
+    /**
+     * @return false si la cola está llena; el documento queda pendiente para el siguiente barrido.
+     */
+    private boolean submit(UUID documentId) {
+        if (!inFlight.add(documentId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(documentId);
+                } finally {
+                    inFlight.remove(documentId);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException e) {
+            inFlight.remove(documentId);
+            return false;
+        }
+    }
+
+    void generate(UUID documentId) {
+        try {
+            DocumentContent content = clinicalDocumentService.getDocumentContent(documentId.toString());
+            Optional<byte[]> preview;
+            try {
+                preview = renderer.render(content);
+            } finally {
+                if (content.stream() != null) {
+                    content.stream().close();
+                }
+            }
+            if (preview.isEmpty()) {
+                // Formato sin vista previa (p. ej. DICOM): se marca como fallida sin reintentos.
+                documentRepository.recordPreviewFailure(documentId, 1);
+                return;
+            }
+            BlobStorage.BlobReference blob = blobStorage.store(new ByteArrayInputStream(preview.get()));
+            documentRepository.markPreviewReady(documentId, blob.key(), blob.sizeBytes());
+        } catch (ResourceNotFoundException e) {
+            logger.debug("Document {} no longer exists; preview skipped", documentId);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not render preview for document {}", documentId, e);
+            documentRepository.recordPreviewFailure(documentId, maxAttempts);
+        }
+    }
+
+    private static String previewFilename(String filename) {
+        String base = filename == null || filename.isBlank() ? "preview" : filename;
+        int dot = base.lastIndexOf('.');
+        return (dot > 0 ? base.substring(0, dot) : base) + ".jpg";
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
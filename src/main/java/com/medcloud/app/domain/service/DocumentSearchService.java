@@ -0,0 +1,243 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.dto.ClinicalDocumentSearchResult;
+import com.medcloud.app.domain.dto.DocumentChange;
+import com.medcloud.app.domain.dto.DocumentSearchEntry;
+import com.medcloud.app.domain.dto.DocumentSearchQuery;
+import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.domain.exceptions.InvalidPaginationException;
+import com.medcloud.app.domain.exceptions.InvalidUuidException;
+import com.medcloud.app.domain.repository.ClinicalDocumentRepository;
+import com.medcloud.app.domain.repository.DocumentChangeOutbox;
+import com.medcloud.app.domain.repository.DocumentSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Búsqueda de texto sobre los metadatos de los documentos y el tratamiento del paciente.
+ * Cada instancia tiene su propio índice embebido y lo alimenta desde el outbox de cambios
+ * (el mismo del feed SSE), así indexa también lo subido en otras instancias. La posición en el
+ * outbox se guarda con cada commit del índice: al arrancar se sigue desde ahí, y el índice se
+ * reconstruye completo desde la BD si está vacío, si nunca registró su posición o si el outbox ya
+ * no conserva los cambios posteriores a ella. Un documento que no se pudo indexar se reintenta en
+ * la siguiente sincronización. Si el tratamiento de un paciente cambió, se reindexan sus documentos.
+ */
+@Service
+@RequiredArgsConstructor
+public class DocumentSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentSearchService.class);
+
+    // Secuencias saltadas que se siguen buscando a la vez; el resto se da por perdido de inmediato.
+    private static final int MAX_MISSING_SEQUENCES = 10_000;
+
+    private final DocumentSearchIndex searchIndex;
+    private final ClinicalDocumentRepository documentRepository;
+    private final DocumentChangeOutbox outbox;
+
+    @Value("${medcloud.search.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${medcloud.search.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${medcloud.search.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${medcloud.search.sync-batch-size:500}")
+    private int syncBatchSize;
+
+    // Tiempo durante el que se sigue buscando una secuencia saltada del outbox (transacción aún sin confirmar).
+    @Value("${medcloud.search.late-window:5m}")
+    private Duration lateWindow;
+
+    // Estado de la sincronización: lo inicializa start() y, una vez que ready es verdadero, solo lo usa sync().
+    private volatile boolean ready;
+    private long scanned;
+    private long savedCursor = -1;
+    private final Map<Long, Long> missing = new LinkedHashMap<>();
+
+    /**
+     * Busca documentos por texto libre con filtros opcionales.
+     * @param sort "relevance" (por defecto) o "date" (más recientes primero).
+     */
+    public ClinicalDocumentSearchResult search(String text, DocumentKind kind, String uploadedByEpsId,
+                                               String patientDocumentNumber, OffsetDateTime from, OffsetDateTime to,
+                                               Integer limit, String sort) {
+        int size = limit == null ? defaultLimit : limit;
+        if (size < 1 || size > maxLimit) {
+            throw new InvalidPaginationException("El tamaño de página debe estar entre 1 y " + maxLimit + ".");
+        }
+        boolean sortByDate;
+        if (sort == null || sort.equalsIgnoreCase("relevance")) {
+            sortByDate = false;
+        } else if (sort.equalsIgnoreCase("date")) {
+            sortByDate = true;
+        } else {
+            throw new InvalidPaginationException("El orden debe ser 'relevance' o 'date'.");
+        }
+        UUID epsId = null;
+        if (uploadedByEpsId != null && !uploadedByEpsId.isBlank()) {
+            try {
+                epsId = UUID.fromString(uploadedByEpsId);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidUuidException("UUID de EPS inválido: " + e.getMessage());
+            }
+        }
+        return searchIndex.search(new DocumentSearchQuery(text, kind, epsId, patientDocumentNumber,
+                from, to, sortByDate, size));
+    }
+
+    /**
+     * Retoma la posición guardada en el índice o, si no sirve, lo reconstruye desde la BD.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        OptionalLong cursor = searchIndex.outboxCursor();
+        long first = outbox.firstSequence();
+        if (searchIndex.count() > 0 && cursor.isPresent() && (first == 0 || cursor.getAsLong() >= first - 1)) {
+            scanned = cursor.getAsLong();
+        } else {
+            // La posición se toma antes de recorrer la BD: lo que se suba mientras tanto se indexa después.
+            scanned = outbox.lastSequence();
+            rebuild();
+            searchIndex.setOutboxCursor(scanned);
+        }
+        savedCursor = scanned;
+        ready = true;
+    }
+
+    private void rebuild() {
+        long indexed = 0;
+        UUID after = null;
+        List<DocumentSearchEntry> batch;
+        do {
+            batch = documentRepository.findSearchEntries(after, rebuildBatchSize);
+            batch.forEach(searchIndex::index);
+            indexed += batch.size();
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).id();
+            }
+        } while (batch.size() == rebuildBatchSize);
+        logger.info("Search index rebuilt with {} documents", indexed);
+    }
+
+    /**
+     * Indexa los documentos nuevos del outbox de cambios. Un hueco en la secuencia (transacción
+     * aún sin confirmar) no detiene a los posteriores: se vuelve a buscar durante late-window.
+     * La posición guardada es la anterior al primer hueco pendiente.
+     */
+    @Scheduled(fixedDelayString = "${medcloud.search.sync-ms:1000}")
+    public void sync() {
+        if (!ready) {
+            return;
+        }
+        boolean changed = false;
+        try {
+            changed = indexMissing();
+            List<DocumentChange> changes;
+            do {
+                changes = outbox.findAfter(scanned, syncBatchSize);
+                if (changes.isEmpty()) {
+                    break;
+                }
+                indexChanges(changes);
+                changed = true;
+                long deadline = System.nanoTime() + lateWindow.toNanos();
+                for (DocumentChange change : changes) {
+                    for (long sequence = scanned + 1; sequence < change.sequence(); sequence++) {
+                        if (missing.size() < MAX_MISSING_SEQUENCES) {
+                            missing.put(sequence, deadline);
+                        } else {
+                            logger.warn("Document change {} not indexed: too many pending gaps", sequence);
+                        }
+                    }
+                    scanned = change.sequence();
+                }
+            } while (changes.size() == syncBatchSize);
+        } catch (RuntimeException e) {
+            // Sin avanzar la posición: el lote se reintenta en la siguiente sincronización.
+            logger.warn("Search index sync failed: {}", e.getMessage());
+        }
+        long cursor = missing.isEmpty() ? scanned : missing.keySet().iterator().next() - 1;
+        if (cursor != savedCursor) {
+            searchIndex.setOutboxCursor(cursor);
+            savedCursor = cursor;
+        }
+        if (changed) {
+            searchIndex.refresh();
+        }
+    }
+
+    /**
+     * Indexa las secuencias saltadas que ya se confirmaron y descarta las que vencieron su plazo.
+     */
+    private boolean indexMissing() {
+        if (missing.isEmpty()) {
+            return false;
+        }
+        List<DocumentChange> found = outbox.findBySequences(List.copyOf(missing.keySet()));
+        if (!found.isEmpty()) {
+            indexChanges(found);
+            found.forEach(change -> missing.remove(change.sequence()));
+        }
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Long, Long>> it = missing.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Long> entry = it.next();
+            if (now - entry.getValue() >= 0) {
+                it.remove();
+                logger.warn("Document change {} not indexed: not committed within {}", entry.getKey(), lateWindow);
+            }
+        }
+        return !found.isEmpty();
+    }
+
+    /**
+     * Indexa los documentos de los cambios con sus datos actuales de la BD y reindexa los pacientes
+     * cuyo tratamiento cambió desde que se indexaron sus documentos anteriores.
+     */
+    private void indexChanges(List<DocumentChange> changes) {
+        List<DocumentSearchEntry> entries = documentRepository.findSearchEntriesByIds(
+                changes.stream().map(DocumentChange::documentId).toList());
+        Map<UUID, String> treatmentByPatient = new HashMap<>();
+        for (DocumentSearchEntry entry : entries) {
+            if (entry.patientId() != null) {
+                treatmentByPatient.put(entry.patientId(), entry.patientTreatment());
+            }
+        }
+        for (Map.Entry<UUID, String> patient : treatmentByPatient.entrySet()) {
+            if (searchIndex.countWithOtherTreatment(patient.getKey(), patient.getValue()) > 0) {
+                reindexPatient(patient.getKey());
+            }
+        }
+        entries.forEach(searchIndex::index);
+    }
+
+    private void reindexPatient(UUID patientId) {
+        UUID after = null;
+        List<DocumentSearchEntry> batch;
+        do {
+            batch = documentRepository.findSearchEntriesByPatient(patientId, after, rebuildBatchSize);
+            batch.forEach(searchIndex::index);
+            if (!batch.isEmpty()) {
+                after = batch.get(batch.size() - 1).id();
+            }
+        } while (batch.size() == rebuildBatchSize);
+    }
+}
@@ -9,7 +9,9 @@ import com.medcloud.app.persistence.entity.RoleEntity;
 import com.medcloud.app.persistence.jpa.JpaRole;
 import com.medcloud.app.persistence.mapper.EpsMapper;
 import com.medcloud.app.persistence.repositoryimp.UserRepositoryImp;
+import com.medcloud.app.security.TokenRevocationService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,18 +24,20 @@ public class EpsService {
     private final EpsMapper userMapper;
     private final PasswordHasher passwordHasher;
     private final JpaRole jpaRole;
+    private final TokenRevocationService tokenRevocationService;
 
-    public EpsService(UserRepositoryImp userRepositoryImp, EpsMapper userMapper, PasswordHasher passwordHasher, JpaRole jpaRole) {
+    public EpsService(UserRepositoryImp userRepositoryImp, EpsMapper userMapper, PasswordHasher passwordHasher, JpaRole jpaRole,
+                      TokenRevocationService tokenRevocationService) {
         this.userRepositoryImp = userRepositoryImp;
         this.userMapper = userMapper;
         this.passwordHasher = passwordHasher;
         this.jpaRole = jpaRole;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
+    @Transactional(readOnly = true)
     public List<UserResponse> getAll(){
-        List<EpsEntity> list = this.userRepositoryImp.findAll();
-        System.out.println("in service from: repository" + list.toString());
-        return list.stream().map(userMapper::toResponse).collect(Collectors.toList());
+        return this.userRepositoryImp.findAll().stream().map(userMapper::toResponse).collect(Collectors.toList());
     }
 
     public UserResponse save(UserRequestCreate request){
@@ -49,6 +53,8 @@ public class EpsService {
         role.setName(RoleName.EPS);
         epsBase.getRoles().add(role);
 
+        // Las entradas de EPS, roles y consultas en la cache de segundo nivel (regiones READ_WRITE)
+        // las invalida Hibernate al confirmar la escritura, aquí y en updateRole.
         EpsEntity toSave = this.userRepositoryImp.save(epsBase);
         return this.userMapper.toResponse(toSave);
 
@@ -58,6 +64,12 @@ public class EpsService {
         EpsEntity user = this.userRepositoryImp.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found with email: " + email));
 
+        // Sin cambio de roles no se escribe nada ni se revocan los tokens del usuario.
+        if (user.getRoles().size() == 1
+                && user.getRoles().iterator().next().getName() == RoleName.EPS) {
+            return;
+        }
+
         // Clear existing roles and assign EPS role for EPS users
         user.getRoles().clear();
         RoleEntity role = jpaRole.findByName(RoleName.EPS).orElse(new RoleEntity());
@@ -65,6 +77,9 @@ public class EpsService {
         user.getRoles().add(role);
 
         this.userRepositoryImp.save(user);
+
+        // Los tokens emitidos llevan los roles anteriores firmados: se revocan.
+        this.tokenRevocationService.revokeAll(user.getId());
     }
 
 }
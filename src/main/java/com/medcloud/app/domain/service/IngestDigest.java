@@ -0,0 +1,14 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.enums.ContentCodec;
+import com.medcloud.app.domain.repository.BlobStorage;
+
+/**
+ * Resultado de la pasada única de ingesta: blob almacenado, tipo MIME detectado por números
+ * mágicos (null si no se reconoció) y codec con que se guardó.
+ * sha256 y sizeBytes son los del contenido original; el blob trae los de los bytes almacenados,
+ * que solo difieren si el contenido se comprimió.
+ */
+record IngestDigest(BlobStorage.BlobReference blob, String detectedMimeType, ContentCodec codec,
+                    String sha256, long sizeBytes) {
+}
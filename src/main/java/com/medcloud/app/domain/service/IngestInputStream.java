@@ -0,0 +1,123 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.domain.exceptions.InvalidDocumentContentException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Etapa de ingesta que acompaña al contenido en su única pasada hacia el BlobStorage.
+ * Guarda los primeros bytes para detectar el tipo MIME y, en cuanto los tiene, verifica
+ * el tipo MIME y el DocumentKind declarados. Un contenido no reconocido solo se acepta si el
+ * DocumentKind no restringe formatos y el tipo declarado no es uno de los que se detectan.
+ * Si no coinciden lanza la excepción durante
+ * la lectura, así la subida se aborta antes de escribir el resto del archivo.
+ * El tamaño y el SHA-256 se calculan sobre los mismos bytes (en el BlobStorage, o antes
+ * del codec si el contenido se comprime).
+ */
+final class IngestInputStream extends FilterInputStream {
+
+    private final DocumentKind kind;
+    private final String declaredMimeType;
+    private final byte[] head = new byte[MimeSniffer.HEAD_SIZE];
+    private int headLength;
+    private boolean inspected;
+    private String detectedMimeType;
+
+    IngestInputStream(InputStream source, DocumentKind kind, String declaredMimeType) {
+        super(source);
+        this.kind = kind;
+        String normalized = MimeSniffer.normalize(declaredMimeType);
+        // application/octet-stream no declara un formato concreto: no se compara.
+        this.declaredMimeType = "application/octet-stream".equals(normalized) ? null : normalized;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b == -1) {
+            inspect();
+        } else if (!inspected) {
+            head[headLength++] = (byte) b;
+            if (headLength == head.length) {
+                inspect();
+            }
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read == -1) {
+            inspect();
+        } else if (!inspected) {
+            int copy = Math.min(read, head.length - headLength);
+            System.arraycopy(b, off, head, headLength, copy);
+            headLength += copy;
+            if (headLength == head.length) {
+                inspect();
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Salta leyendo: la detección del tipo y el digest posterior ven todos los bytes.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read == -1) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return El tipo MIME detectado por números mágicos, o null si no se reconoció.
+     */
+    String detectedMimeType() {
+        return detectedMimeType;
+    }
+
+    private void inspect() {
+        if (inspected) {
+            return;
+        }
+        inspected = true;
+        detectedMimeType = MimeSniffer.detect(head, headLength);
+        if (detectedMimeType == null) {
+            // Un formato que sabemos detectar y que no aparece es contenido que no corresponde.
+            if (MimeSniffer.hasAllowList(kind)) {
+                throw new InvalidDocumentContentException("El contenido del archivo no corresponde a un formato "
+                        + "aceptado para el tipo de documento " + kind + ".");
+            }
+            if (declaredMimeType != null && MimeSniffer.isDetectable(declaredMimeType)) {
+                throw new InvalidDocumentContentException("El contenido del archivo no corresponde al tipo MIME declarado ("
+                        + declaredMimeType + ").");
+            }
+            return;
+        }
+        if (declaredMimeType != null && !declaredMimeType.equals(detectedMimeType)) {
+            throw new InvalidDocumentContentException("El tipo MIME declarado (" + declaredMimeType
+                    + ") no coincide con el contenido del archivo (" + detectedMimeType + ").");
+        }
+        if (!MimeSniffer.isAllowedFor(kind, detectedMimeType)) {
+            throw new InvalidDocumentContentException("El contenido del archivo (" + detectedMimeType
+                    + ") no corresponde al tipo de documento " + kind + ".");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Detección del tipo MIME por números mágicos (PDF, PNG, JPEG, TIFF, DICOM)
+ * y reglas de compatibilidad entre el tipo detectado y el DocumentKind declarado.
+ */
+public final class MimeSniffer {
+
+    static final String PDF = "application/pdf";
+    static final String PNG = "image/png";
+    static final String JPEG = "image/jpeg";
+    static final String TIFF = "image/tiff";
+    static final String DICOM = "application/dicom";
+
+    /**
+     * Bytes necesarios para detectar todos los formatos: DICOM tiene un preámbulo de 128 bytes
+     * seguido de "DICM".
+     */
+    static final int HEAD_SIZE = 132;
+
+    private static final Map<DocumentKind, Set<String>> ALLOWED_BY_KIND = Map.of(
+            DocumentKind.PDF, Set.of(PDF),
+            DocumentKind.IMAGE, Set.of(PNG, JPEG, TIFF, DICOM),
+            DocumentKind.SCAN, Set.of(PDF, PNG, JPEG, TIFF, DICOM)
+    );
+
+    private static final Set<String> DETECTABLE = Set.of(PDF, PNG, JPEG, TIFF, DICOM);
+
+    private static final Map<String, String> ALIASES = Map.of(
+            "image/jpg", JPEG,
+            "image/pjpeg", JPEG,
+            "image/tif", TIFF,
+            "application/x-pdf", PDF
+    );
+
+    private MimeSniffer() {
+    }
+
+    /**
+     * @return El tipo MIME detectado, o null si el contenido no corresponde a un formato conocido.
+     */
+    static String detect(byte[] head, int length) {
+        if (startsWith(head, length, 0x25, 0x50, 0x44, 0x46, 0x2D)) {
+            return PDF;
+        }
+        if (startsWith(head, length, 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return PNG;
+        }
+        if (startsWith(head, length, 0xFF, 0xD8, 0xFF)) {
+            return JPEG;
+        }
+        if (startsWith(head, length, 0x49, 0x49, 0x2A, 0x00) || startsWith(head, length, 0x4D, 0x4D, 0x00, 0x2A)) {
+            return TIFF;
+        }
+        if (length >= HEAD_SIZE && head[128] == 'D' && head[129] == 'I' && head[130] == 'C' && head[131] == 'M') {
+            return DICOM;
+        }
+        return null;
+    }
+
+    /**
+     * Indica si un tipo detectado es aceptable para el tipo de documento declarado.
+     * LAB_REPORT y OTHER aceptan cualquier contenido.
+     */
+    static boolean isAllowedFor(DocumentKind kind, String detected) {
+        Set<String> allowed = ALLOWED_BY_KIND.get(kind);
+        return allowed == null || allowed.contains(detected);
+    }
+
+    /**
+     * Indica si el tipo de documento solo acepta ciertos formatos (PDF, IMAGE, SCAN).
+     */
+    static boolean hasAllowList(DocumentKind kind) {
+        return ALLOWED_BY_KIND.containsKey(kind);
+    }
+
+    /**
+     * Indica si el tipo MIME (normalizado) es uno de los formatos que detect() reconoce.
+     */
+    static boolean isDetectable(String mimeType) {
+        return DETECTABLE.contains(mimeType);
+    }
+
+    /**
+     * Indica si un documento con este tipo MIME declarado puede mostrarse inline: solo los formatos
+     * que detect() reconoce, cuyo contenido se verificó al subirlo. El resto (p. ej. text/html o
+     * image/svg+xml en LAB_REPORT u OTHER) podría ejecutar scripts en el origen de la API.
+     */
+    public static boolean isInlineSafe(String mimeType) {
+        return isDetectable(normalize(mimeType));
+    }
+
+    /**
+     * Normaliza un tipo MIME declarado: minúsculas, sin parámetros y con alias resueltos.
+     */
+    static String normalize(String mimeType) {
+        if (mimeType == null) {
+            return null;
+        }
+        int semicolon = mimeType.indexOf(';');
+        String base = (semicolon >= 0 ? mimeType.substring(0, semicolon) : mimeType).trim().toLowerCase(Locale.ROOT);
+        return ALIASES.getOrDefault(base, base);
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
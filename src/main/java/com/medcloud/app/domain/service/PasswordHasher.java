@@ -1,7 +1,6 @@
 package com.medcloud.app.domain.service;
 
 import com.medcloud.app.domain.exceptions.WeakPasswordException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -9,8 +8,8 @@ import org.springframework.stereotype.Service;
 public class PasswordHasher {
     private final PasswordEncoder encoder;
 
-    public PasswordHasher() {
-        this.encoder = new BCryptPasswordEncoder();
+    public PasswordHasher(PasswordEncoder encoder) {
+        this.encoder = encoder;
     }
 
     public String hash(String rawPassword) {
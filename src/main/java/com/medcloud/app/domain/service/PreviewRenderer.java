@@ -0,0 +1,153 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.dto.DocumentContent;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Genera la vista previa (JPEG cuyo lado mayor mide como máximo maxDimension) de un documento:
+ * la imagen reducida para PNG, JPEG y TIFF, o la primera página rasterizada para PDF.
+ * Las imágenes grandes se leen con submuestreo, así un escaneo de cientos de megapíxeles
+ * no se decodifica completo en memoria.
+ */
+final class PreviewRenderer {
+
+    private final int maxDimension;
+    private final long maxSourcePixels;
+    private final float jpegQuality;
+
+    PreviewRenderer(int maxDimension, long maxSourcePixels, float jpegQuality) {
+        this.maxDimension = maxDimension;
+        this.maxSourcePixels = maxSourcePixels;
+        this.jpegQuality = jpegQuality;
+    }
+
+    /**
+     * @return El JPEG de la vista previa, o vacío si el formato no se puede previsualizar
+     * (p. ej. DICOM o un PDF cifrado); en ese caso no tiene sentido reintentar.
+     * @throws IOException si falla la lectura del contenido (se puede reintentar).
+     */
+    Optional<byte[]> render(DocumentContent content) throws IOException {
+        String mimeType = content.ref().mimeType() == null ? "" : content.ref().mimeType().toLowerCase(Locale.ROOT);
+        BufferedImage preview = mimeType.contains("pdf") ? renderFirstPage(content) : renderImage(content);
+        return preview == null ? Optional.empty() : Optional.of(encodeJpeg(preview));
+    }
+
+    private BufferedImage renderFirstPage(DocumentContent content) throws IOException {
+        // PDFBox necesita acceso aleatorio: se usa el archivo del blob o una copia temporal.
+        Path temp = null;
+        try {
+            Path file = content.file();
+            if (file == null) {
+                temp = Files.createTempFile("medcloud-preview-", ".pdf");
+                try (InputStream in = content.stream()) {
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                file = temp;
+            }
+            try (PDDocument pdf = Loader.loadPDF(file.toFile())) {
+                if (pdf.getNumberOfPages() == 0) {
+                    return null;
+                }
+                PDRectangle box = pdf.getPage(0).getCropBox();
+                float scale = Math.min(maxDimension / box.getWidth(), maxDimension / box.getHeight());
+                return new PDFRenderer(pdf).renderImage(0, scale, ImageType.RGB);
+            } catch (InvalidPasswordException e) {
+                return null;
+            }
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private BufferedImage renderImage(DocumentContent content) throws IOException {
+        try (InputStream in = content.openStream();
+             ImageInputStream images = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = images == null ? null : ImageIO.getImageReaders(images);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(images, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > maxSourcePixels) {
+                    return null;
+                }
+                // Submuestreo a ~2x del tamaño final; el escalado bilineal hace el resto.
+                int step = Math.max(1, Math.max(width, height) / (maxDimension * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return scale(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reduce la imagen al tamaño de la vista previa sobre fondo blanco (JPEG no tiene transparencia).
+     */
+    private BufferedImage scale(BufferedImage source) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        BufferedImage rgb = image.getType() == BufferedImage.TYPE_INT_RGB ? image : scale(image);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
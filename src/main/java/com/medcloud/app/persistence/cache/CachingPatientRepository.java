@@ -0,0 +1,197 @@
+package com.medcloud.app.persistence.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.medcloud.app.domain.repository.PatientRepository;
+import com.medcloud.app.persistence.datasource.DataSourceRole;
+import com.medcloud.app.persistence.datasource.ReadWriteRoutingDataSource;
+import com.medcloud.app.persistence.entity.PatientEntity;
+import com.medcloud.app.persistence.repositoryimp.PatientRepositoryImp;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cache local (near cache) de pacientes por cédula delante de PatientRepositoryImp.
+ * La mayoría de las lecturas son de pocos pacientes activos: el historial público y sus listados
+ * resuelven la cédula sin ir a la BD. Acotada por tamaño y por TTL; las cédulas sin paciente
+ * también se guardan (caché negativa) con un TTL más corto.
+ * Varias peticiones simultáneas por la misma cédula no cacheada esperan una sola consulta.
+ * Coherencia:
+ * - El ETag de los listados y su cuerpo resuelven la cédula a través de esta caché
+ *   (ClinicalDocumentServiceImpl#getPatientDocumentsVersion): una ausencia cacheada da el ETag del
+ *   historial vacío y el cuerpo "[]", nunca "[]" con el ETag de un historial con documentos.
+ * - La consulta del delegado no abre transacción propia, así que va donde va la transacción actual:
+ *   a la réplica solo dentro de una de solo lectura (ReadWriteRoutingDataSource#currentRole).
+ *   Lo leído de la réplica, que puede ir atrasada, vive negative-ttl aunque el paciente exista, y
+ *   una lectura que va al primario (p. ej. fijada tras una escritura) no se conforma con ello.
+ * - Dentro de una transacción de escritura se lee siempre de la BD (el upsert de la subida necesita
+ *   ver la fila que bloqueó) y nada de lo leído se cachea.
+ * - Toda cédula escrita o leída para escribir en una transacción se invalida al terminarla, así la
+ *   siguiente lectura ve lo confirmado. Los cambios hechos en otra instancia se ven al vencer el TTL.
+ * Cada acierto devuelve una entidad nueva (desacoplada): nunca se comparte una instancia entre hilos.
+ * Métricas: cache.gets{cache=patients,result=hit|miss}, cache.size y cache.evictions.
+ */
+@Primary
+@Repository
+public class CachingPatientRepository implements PatientRepository {
+
+    /**
+     * Copia inmutable de los datos del paciente guardada en la caché.
+     */
+    private record CachedPatient(UUID id, String documentNumber, String fullName, LocalDate birthDate,
+                                 String treatment, boolean diagnosisInProgress) {
+
+        static CachedPatient of(PatientEntity patient) {
+            return new CachedPatient(patient.getId(), patient.getDocumentNumber(), patient.getFullName(),
+                    patient.getBirthDate(), patient.getTreatment(), patient.isDiagnosisInProgress());
+        }
+
+        PatientEntity toEntity() {
+            PatientEntity patient = new PatientEntity();
+            patient.setId(id);
+            patient.setDocumentNumber(documentNumber);
+            patient.setFullName(fullName);
+            patient.setBirthDate(birthDate);
+            patient.setTreatment(treatment);
+            patient.setDiagnosisInProgress(diagnosisInProgress);
+            return patient;
+        }
+    }
+
+    private final PatientRepositoryImp delegate;
+    // Solo existe con réplica configurada (ReadReplicaDataSourceConfig).
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final Cache<String, CachedLookup> byDocumentNumber;
+
+    /**
+     * Resultado cacheado de buscar una cédula: el paciente, o nulo si no existe, y de dónde se leyó.
+     */
+    private record CachedLookup(CachedPatient patient, boolean fromPrimary) {
+    }
+
+    public CachingPatientRepository(PatientRepositoryImp delegate,
+                                    ObjectProvider<ReadWriteRoutingDataSource> routingDataSource,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${medcloud.cache.patients.max-size:10000}") long maxSize,
+                                    @Value("${medcloud.cache.patients.ttl:5m}") Duration ttl,
+                                    @Value("${medcloud.cache.patients.negative-ttl:30s}") Duration negativeTtl) {
+        this.delegate = delegate;
+        this.routingDataSource = routingDataSource.getIfAvailable();
+        long ttlNanos = ttl.toNanos();
+        long negativeTtlNanos = negativeTtl.toNanos();
+        this.byDocumentNumber = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedLookup>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedLookup value, long currentTime) {
+                        return value.patient() != null && value.fromPrimary() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedLookup value, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedLookup value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byDocumentNumber, "patients");
+    }
+
+    @Override
+    public Optional<PatientEntity> findById(UUID uuid) {
+        return delegate.findById(uuid);
+    }
+
+    @Override
+    public Optional<PatientEntity> findByDocumentNumber(String documentNumber) {
+        if (documentNumber == null) {
+            return delegate.findByDocumentNumber(null);
+        }
+        if (inWriteTransaction()) {
+            invalidateAfterCompletion(List.of(documentNumber));
+            return delegate.findByDocumentNumber(documentNumber);
+        }
+        boolean fromPrimary = !readsFromReplica();
+        CachedLookup lookup = byDocumentNumber.get(documentNumber, key -> load(key, fromPrimary));
+        if (fromPrimary && !lookup.fromPrimary()) {
+            lookup = load(documentNumber, true);
+            byDocumentNumber.put(documentNumber, lookup);
+        }
+        return Optional.ofNullable(lookup.patient()).map(CachedPatient::toEntity);
+    }
+
+    private CachedLookup load(String documentNumber, boolean fromPrimary) {
+        return new CachedLookup(delegate.findByDocumentNumber(documentNumber).map(CachedPatient::of).orElse(null),
+                fromPrimary);
+    }
+
+    @Override
+    public List<PatientEntity> findAllByDocumentNumberIn(Collection<String> documentNumbers) {
+        // Quien lee en lote puede modificar las entidades: se invalidan al terminar su transacción.
+        invalidateAfterCompletion(documentNumbers);
+        return delegate.findAllByDocumentNumberIn(documentNumbers);
+    }
+
+    @Override
+    public Optional<PatientEntity> upsertByDocumentNumber(PatientEntity patient) {
+        invalidateAfterCompletion(List.of(patient.getDocumentNumber()));
+        return delegate.upsertByDocumentNumber(patient);
+    }
+
+    @Override
+    public PatientEntity save(PatientEntity patient) {
+        invalidateAfterCompletion(List.of(patient.getDocumentNumber()));
+        return delegate.save(patient);
+    }
+
+    private static boolean inWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private boolean readsFromReplica() {
+        return routingDataSource != null && routingDataSource.currentRole() == DataSourceRole.REPLICA;
+    }
+
+    /**
+     * Invalida ya (para que nadie lea el valor anterior a la escritura) y otra vez al terminar la
+     * transacción, por si otro hilo cacheó el estado previo mientras la transacción seguía abierta.
+     */
+    private void invalidateAfterCompletion(Collection<String> documentNumbers) {
+        List<String> keys = documentNumbers.stream().filter(Objects::nonNull).toList();
+        if (keys.isEmpty()) {
+            return;
+        }
+        byDocumentNumber.invalidateAll(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    byDocumentNumber.invalidateAll(keys);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.medcloud.app.persistence.cache;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aciertos y fallos de las regiones de la cache de segundo nivel con datos de referencia (EPS y roles).
+ * Las cifras salen de las estadísticas de Hibernate y se registran periódicamente en el log.
+ */
+@Component
+public class ReferenceDataCacheStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCacheStats.class);
+
+    static final List<String> REGIONS = List.of("eps", "eps-roles", "roles", "default-query-results-region");
+
+    public record RegionStats(long hits, long misses, long puts, long elements) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+
+    private final Statistics statistics;
+
+    public ReferenceDataCacheStats(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public Map<String, RegionStats> snapshot() {
+        Map<String, RegionStats> result = new LinkedHashMap<>();
+        for (String region : REGIONS) {
+            // null si la región todavía no existe (por ejemplo, sin consultas cacheadas aún).
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null) {
+                result.put(region, new RegionStats(stats.getHitCount(), stats.getMissCount(),
+                        stats.getPutCount(), stats.getElementCountInMemory()));
+            }
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${medcloud.cache.stats-log-ms:300000}", initialDelayString = "${medcloud.cache.stats-log-ms:300000}")
+    public void log() {
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        snapshot().forEach((region, stats) -> logger.info(
+                "L2 cache region {}: hits={} misses={} hitRate={} puts={} elements={}",
+                region, stats.hits(), stats.misses(), String.format("%.2f", stats.hitRate()),
+                stats.puts(), stats.elements()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.medcloud.app.persistence.datasource;
+
+/**
+ * Destino de una conexión en ReadWriteRoutingDataSource.
+ */
+public enum DataSourceRole {
+    PRIMARY,
+    REPLICA
+}
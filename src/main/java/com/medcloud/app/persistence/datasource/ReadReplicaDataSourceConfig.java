@@ -0,0 +1,96 @@
+package com.medcloud.app.persistence.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Enrutamiento lectura/escritura. Solo se activa si se configura medcloud.datasource.replica.url;
+ * sin réplica se usa el DataSource por defecto de Spring Boot.
+ * El primario se configura con spring.datasource.* y spring.datasource.hikari.*; la réplica con
+ * medcloud.datasource.replica.* y medcloud.datasource.replica.hikari.*.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "medcloud.datasource.replica", name = "url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class ReadReplicaDataSourceConfig {
+
+    private static final long READ_YOUR_WRITES_MAX_CLIENTS = 100_000;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("medcloud.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties primary, ReplicaDataSourceProperties replica) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(primary.determineDriverClassName())
+                .url(replica.getUrl())
+                .username(replica.getUsername())
+                .password(replica.getPassword())
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                                        @Qualifier("replicaDataSource") DataSource replica) {
+        return new ReadWriteRoutingDataSource(primary, replica);
+    }
+
+    /**
+     * DataSource que usan JPA y JDBC: la conexión real se elige al ejecutar la primera sentencia.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               ReadWriteRoutingDataSource routingDataSource,
+                                               ReplicaDataSourceProperties properties, MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(replica, routingDataSource, properties, meterRegistry);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(ReplicaDataSourceProperties properties) {
+        return new ReadYourWritesTracker(Duration.ofMillis(properties.getReadYourWritesMs()), READ_YOUR_WRITES_MAX_CLIENTS);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWritesTracker tracker) {
+        return new ReadYourWritesFilter(tracker);
+    }
+
+    /**
+     * Spring Boot aplica este decorador al executor de @Async y de las respuestas asíncronas de MVC
+     * (StreamingResponseBody): las lecturas que siguen en otro hilo respetan read-your-writes.
+     */
+    @Bean
+    public TaskDecorator readYourWritesTaskDecorator() {
+        return ReadYourWritesContext::propagate;
+    }
+}
@@ -0,0 +1,53 @@
+package com.medcloud.app.persistence.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Envía las transacciones de solo lectura (@Transactional(readOnly = true)) a la réplica y todo
+ * lo demás al primario. Las lecturas vuelven al primario si la réplica está atrasada o caída
+ * (ReplicaLagMonitor) o si la petición está fijada al primario (ReadYourWritesContext).
+ * Debe usarse detrás de un LazyConnectionDataSourceProxy: así la conexión se pide al ejecutar
+ * la primera sentencia, cuando la transacción ya registró si es de solo lectura.
+ * <p>
+ * Sin transacción no hay marca de solo lectura y la consulta va al primario. Esto incluye los métodos
+ * de consulta declarados en los repositorios de Spring Data (@Query o derivados por nombre), que no abren
+ * transacción propia; solo los heredados de CrudRepository/JpaRepository (findById, findAll...) son
+ * readOnly por sí mismos. Quien quiera leer de la réplica debe abrir una transacción de solo lectura
+ * (@Transactional(readOnly = true) en el servicio, o un TransactionTemplate con setReadOnly(true)).
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private volatile boolean replicaAvailable = true;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(DataSourceRole.PRIMARY, primary, DataSourceRole.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRole();
+    }
+
+    public DataSourceRole currentRole() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && replicaAvailable
+                && !ReadYourWritesContext.isPinnedToPrimary()) {
+            return DataSourceRole.REPLICA;
+        }
+        return DataSourceRole.PRIMARY;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public void setReplicaAvailable(boolean replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+    }
+}
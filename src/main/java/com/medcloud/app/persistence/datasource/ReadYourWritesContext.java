@@ -0,0 +1,44 @@
+package com.medcloud.app.persistence.datasource;
+
+/**
+ * Indica si la petición del hilo actual debe leer del primario aunque su transacción sea
+ * de solo lectura (el cliente escribió hace poco y la réplica podría no tener sus cambios).
+ */
+public final class ReadYourWritesContext {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    public static void pinToPrimary(boolean pinned) {
+        if (pinned) {
+            PINNED_TO_PRIMARY.set(Boolean.TRUE);
+        } else {
+            PINNED_TO_PRIMARY.remove();
+        }
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED_TO_PRIMARY.get());
+    }
+
+    public static void clear() {
+        PINNED_TO_PRIMARY.remove();
+    }
+
+    /**
+     * Lleva el estado del hilo actual a una tarea que se ejecutará en otro hilo (TaskDecorator).
+     */
+    public static Runnable propagate(Runnable task) {
+        boolean pinned = isPinnedToPrimary();
+        return () -> {
+            pinToPrimary(pinned);
+            try {
+                task.run();
+            } finally {
+                clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package com.medcloud.app.persistence.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * Recuerda qué clientes escribieron hace menos de medcloud.datasource.replica.read-your-writes-ms.
+ * Sus lecturas se fijan al primario durante esa ventana. El registro es local a cada instancia.
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration window, long maxClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxClients)
+                .build();
+    }
+
+    public void recordWrite(String client) {
+        recentWriters.put(client, Boolean.TRUE);
+    }
+
+    public boolean wroteRecently(String client) {
+        return recentWriters.getIfPresent(client) != null;
+    }
+}
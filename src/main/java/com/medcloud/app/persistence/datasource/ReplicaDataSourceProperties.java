@@ -0,0 +1,33 @@
+package com.medcloud.app.persistence.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configuración de la réplica de lectura (medcloud.datasource.replica.*).
+ * El pool de la réplica se ajusta con medcloud.datasource.replica.hikari.*.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("medcloud.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private String url;
+    private String username;
+    private String password;
+
+    /** Atraso máximo tolerado; por encima las lecturas van al primario. */
+    private long maxLagMs = 5000;
+
+    /** Frecuencia con que se mide el atraso de la réplica. */
+    private long lagCheckMs = 2000;
+
+    /** Consulta que devuelve el atraso de la réplica en milisegundos. */
+    private String lagQuery = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+            + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    /** Tiempo que las lecturas de un cliente van al primario después de una escritura suya. */
+    private long readYourWritesMs = 5000;
+}
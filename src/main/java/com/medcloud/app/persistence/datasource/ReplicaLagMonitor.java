@@ -0,0 +1,66 @@
+package com.medcloud.app.persistence.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Mide periódicamente el atraso de la réplica. Si supera medcloud.datasource.replica.max-lag-ms
+ * o la réplica no responde, las lecturas se envían al primario hasta que se recupere.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replica;
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final ReplicaDataSourceProperties properties;
+    private volatile long lastLagMs = -1;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, ReadWriteRoutingDataSource routingDataSource,
+                             ReplicaDataSourceProperties properties, MeterRegistry meterRegistry) {
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.replica.setQueryTimeout(Math.max(1, (int) (properties.getLagCheckMs() / 1000)));
+        this.routingDataSource = routingDataSource;
+        this.properties = properties;
+        Gauge.builder("medcloud.datasource.replica.lag", this, monitor -> monitor.lastLagMs)
+                .description("Atraso de la réplica de lectura (-1 si no responde)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("medcloud.datasource.replica.available", routingDataSource, ds -> ds.isReplicaAvailable() ? 1 : 0)
+                .description("1 si las lecturas se envían a la réplica")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${medcloud.datasource.replica.lag-check-ms:2000}")
+    public void check() {
+        long lagMs;
+        try {
+            Number lag = replica.queryForObject(properties.getLagQuery(), Number.class);
+            lagMs = lag != null ? lag.longValue() : 0;
+        } catch (RuntimeException e) {
+            lagMs = -1;
+            logger.debug("No fue posible medir el atraso de la réplica", e);
+        }
+        lastLagMs = lagMs;
+
+        boolean available = lagMs >= 0 && lagMs <= properties.getMaxLagMs();
+        if (available != routingDataSource.isReplicaAvailable()) {
+            if (available) {
+                logger.info("Réplica de lectura disponible (atraso {} ms); las lecturas vuelven a la réplica", lagMs);
+            } else {
+                logger.warn("Réplica de lectura atrasada o caída (atraso {} ms); las lecturas van al primario", lagMs);
+            }
+            routingDataSource.setReplicaAvailable(available);
+        }
+    }
+
+    public long lastLagMs() {
+        return lastLagMs;
+    }
+}
@@ -1,6 +1,8 @@
 package com.medcloud.app.persistence.entity;
 
+import com.medcloud.app.domain.enums.ContentCodec;
 import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.domain.enums.PreviewStatus;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -9,6 +11,7 @@ import lombok.Setter;
 import lombok.NoArgsConstructor;
 
 import java.time.OffsetDateTime;
+import java.util.UUID;
 
 @Getter
 @Setter
@@ -16,8 +19,11 @@ import java.time.OffsetDateTime;
 @Entity
 @Table(name="clinical_documents",
         indexes = {
-                @Index(name="ix_doc_patient", columnList="patient_id"),
-                @Index(name="ix_doc_eps", columnList="uploaded_by_eps_id")
+                // Cubre la búsqueda por paciente y la paginación keyset por (uploaded_at, id)
+                @Index(name="ix_doc_patient_uploaded", columnList="patient_id, uploaded_at, id"),
+                @Index(name="ix_doc_eps", columnList="uploaded_by_eps_id"),
+                // Documentos con la vista previa pendiente (preview_status nulo) para el barrido
+                @Index(name="ix_doc_preview_pending", columnList="preview_status, kind")
         })
 public class ClinicalDocument extends BaseId{
     @ManyToOne(optional=false) @JoinColumn(name="patient_id", nullable=false)
@@ -38,10 +44,36 @@ public class ClinicalDocument extends BaseId{
     /**
      * Campo para almacenar el contenido del archivo codificado en Base64.
      * Usamos columnDefinition="TEXT" para evitar el límite de VARCHAR en archivos grandes.
+     * Solo lo usan los documentos anteriores al BlobStorage; los nuevos lo dejan nulo.
      */
-    @Column(name = "content_base64", nullable = false, columnDefinition = "TEXT")
+    @Column(name = "content_base64", columnDefinition = "TEXT")
     private String fileContentBase64;
 
+    /**
+     * Referencia del contenido en el BlobStorage.
+     */
+    @Column(name = "blob_key", length = 64)
+    private String blobKey;
+
+    /**
+     * Digest SHA-256 (hex) del contenido original (antes de comprimir).
+     */
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
+    /**
+     * Codec con el que se guardó el blob; nulo en documentos anteriores a la compresión (IDENTITY).
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_codec", length = 16)
+    private ContentCodec contentCodec;
+
+    /**
+     * Tamaño del blob almacenado en bytes (comprimido o no); sizeBytes es el tamaño original.
+     */
+    @Column(name = "stored_size_bytes")
+    private Long storedSizeBytes;
+
     @Size(max=120)
     private String mimeType;
 
@@ -60,4 +92,28 @@ public class ClinicalDocument extends BaseId{
 
     @Column(nullable=false)
     private OffsetDateTime uploadedAt = OffsetDateTime.now();
+
+    /**
+     * ID de la subida asíncrona (202 Accepted) que creó el documento; nulo en las síncronas.
+     * Único: al reprocesar el spool después de un reinicio, una subida ya guardada no se repite.
+     */
+    @Column(name = "upload_id", unique = true)
+    private UUID uploadId;
+
+    /**
+     * Vista previa (miniatura JPEG) en el BlobStorage; se genera en segundo plano después de la subida.
+     * El estado es nulo mientras está pendiente; preview_attempts cuenta los intentos fallidos.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "preview_status", length = 10)
+    private PreviewStatus previewStatus;
+
+    @Column(name = "preview_attempts")
+    private Integer previewAttempts;
+
+    @Column(name = "preview_blob_key", length = 64)
+    private String previewBlobKey;
+
+    @Column(name = "preview_size_bytes")
+    private Long previewSizeBytes;
 }
@@ -0,0 +1,58 @@
+package com.medcloud.app.persistence.entity;
+
+import com.medcloud.app.domain.enums.DocumentKind;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Fila del outbox de cambios de documentos. Se inserta en la misma transacción que el documento,
+ * así el feed nunca anuncia un documento que no se guardó ni pierde uno que sí.
+ * El id (identity) es la secuencia del feed; no tiene FK para no depender del orden de los inserts.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "document_change_outbox",
+        indexes = {
+                // Reenvío desde Last-Event-ID filtrado por EPS o por paciente
+                @Index(name = "ix_change_eps", columnList = "uploaded_by_eps_id, id"),
+                @Index(name = "ix_change_patient", columnList = "patient_document_number, id"),
+                @Index(name = "ix_change_created", columnList = "created_at")
+        })
+public class DocumentChangeEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "document_id", nullable = false)
+    private UUID documentId;
+
+    @Column(name = "patient_document_number", nullable = false)
+    private String patientDocumentNumber;
+
+    @Column(name = "uploaded_by_eps_id", nullable = false)
+    private UUID uploadedByEpsId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private DocumentKind kind;
+
+    @Column(length = 200)
+    private String filename;
+
+    @Column(length = 120)
+    private String mimeType;
+
+    @Column(name = "uploaded_at", nullable = false)
+    private OffsetDateTime uploadedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+}
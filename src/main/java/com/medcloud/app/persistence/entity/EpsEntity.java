@@ -6,6 +6,9 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -13,6 +16,7 @@ import java.util.Set;
 @Getter
 @Setter
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "eps")
 @Table(name="eps",
         indexes = {
                 @Index(name="ix_eps_username", columnList="username", unique=true),
@@ -39,6 +43,15 @@ public class EpsEntity extends BaseId{
     @Column(nullable=false)
     private boolean enabled = true;
 
+    /**
+     * Versión de los tokens JWT del usuario. Al incrementarla se revocan los tokens emitidos antes.
+     * Solo la escribe la consulta de incremento (UserRepositoryImp.incrementTokenVersion): guardar la
+     * entidad no debe pisar un incremento concurrente con un valor leído antes.
+     */
+    @ColumnDefault("0")
+    @Column(name = "token_version", nullable = false, updatable = false)
+    private int tokenVersion = 0;
+
     @NotBlank
     @Column(name = "eps_name", nullable = false)
     @Size(max=120)
@@ -48,6 +61,7 @@ public class EpsEntity extends BaseId{
     @Column(name = "nit", unique = true)
     private String nit;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "eps-roles")
     @ManyToMany(fetch = FetchType.EAGER, cascade = CascadeType.PERSIST)
     @JoinTable(name="eps_roles",
             joinColumns = @JoinColumn(name="eps_id"),
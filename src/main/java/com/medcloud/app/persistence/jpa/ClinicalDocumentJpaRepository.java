@@ -1,10 +1,24 @@
 package com.medcloud.app.persistence.jpa;
 
+import com.medcloud.app.domain.dto.ClinicalDocumentSummary;
+import com.medcloud.app.domain.dto.DocumentContentRef;
+import com.medcloud.app.domain.dto.DocumentSearchEntry;
+import com.medcloud.app.domain.dto.DocumentVersion;
+import com.medcloud.app.domain.dto.PatientDocumentsVersion;
+import com.medcloud.app.domain.enums.DocumentKind;
 import com.medcloud.app.persistence.entity.ClinicalDocument;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -12,6 +26,8 @@ import java.util.UUID;
  *
  * Extiende JpaRepository, usando ClinicalDocument como entidad y UUID como tipo de ID.
  * Proporciona métodos CRUD automáticos.
+ * Las consultas declaradas aquí no abren transacción propia: fuera de una transacción de solo lectura
+ * van al primario (ver ReadWriteRoutingDataSource).
  */
 @Repository
 public interface ClinicalDocumentJpaRepository extends JpaRepository<ClinicalDocument, UUID> {
@@ -24,4 +40,243 @@ public interface ClinicalDocumentJpaRepository extends JpaRepository<ClinicalDoc
      * @return Una lista de documentos clínicos.
      */
     List<ClinicalDocument> findByPatientId(UUID patientId);
+
+    /**
+     * Lista los metadatos de los documentos de un paciente, del más reciente al más antiguo.
+     * La proyección nunca selecciona content_base64.
+     * @param patientId El UUID del paciente.
+     * @return Una lista de resúmenes de documentos clínicos.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.ClinicalDocumentSummary(
+                d.id, p.id, e.id, e.epsName, d.doctorName, d.doctorDocumentNumber, d.doctorSpecialty,
+                p.diagnosisInProgress, d.kind, d.filename, d.mimeType, d.sizeBytes, d.contentSha256, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where p.id = :patientId
+            order by d.uploadedAt desc, d.id desc
+            """)
+    List<ClinicalDocumentSummary> findSummariesByPatientId(@Param("patientId") UUID patientId);
+
+    /**
+     * Primera página del historial de un paciente, ordenada por (uploadedAt, id) ascendente.
+     * Usa el índice compuesto ix_doc_patient_uploaded (patient_id, uploaded_at, id).
+     * @param patientId El UUID del paciente.
+     * @param pageable Solo se usa su tamaño; el orden lo fija la consulta.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.ClinicalDocumentSummary(
+                d.id, p.id, e.id, e.epsName, d.doctorName, d.doctorDocumentNumber, d.doctorSpecialty,
+                p.diagnosisInProgress, d.kind, d.filename, d.mimeType, d.sizeBytes, d.contentSha256, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where p.id = :patientId
+            order by d.uploadedAt asc, d.id asc
+            """)
+    List<ClinicalDocumentSummary> findSummaryPageAsc(@Param("patientId") UUID patientId, Pageable pageable);
+
+    /**
+     * Página siguiente (ascendente) a partir de la posición (uploadedAt, id) del cursor.
+     * La comparación por tupla permite a PostgreSQL recorrer el índice desde el cursor.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.ClinicalDocumentSummary(
+                d.id, p.id, e.id, e.epsName, d.doctorName, d.doctorDocumentNumber, d.doctorSpecialty,
+                p.diagnosisInProgress, d.kind, d.filename, d.mimeType, d.sizeBytes, d.contentSha256, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where p.id = :patientId and (d.uploadedAt, d.id) > (:uploadedAt, :id)
+            order by d.uploadedAt asc, d.id asc
+            """)
+    List<ClinicalDocumentSummary> findSummaryPageAscAfter(@Param("patientId") UUID patientId,
+                                                          @Param("uploadedAt") OffsetDateTime uploadedAt,
+                                                          @Param("id") UUID id,
+                                                          Pageable pageable);
+
+    /**
+     * Primera página del historial de un paciente, ordenada por (uploadedAt, id) descendente.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.ClinicalDocumentSummary(
+                d.id, p.id, e.id, e.epsName, d.doctorName, d.doctorDocumentNumber, d.doctorSpecialty,
+                p.diagnosisInProgress, d.kind, d.filename, d.mimeType, d.sizeBytes, d.contentSha256, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where p.id = :patientId
+            order by d.uploadedAt desc, d.id desc
+            """)
+    List<ClinicalDocumentSummary> findSummaryPageDesc(@Param("patientId") UUID patientId, Pageable pageable);
+
+    /**
+     * Página siguiente (descendente) a partir de la posición (uploadedAt, id) del cursor.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.ClinicalDocumentSummary(
+                d.id, p.id, e.id, e.epsName, d.doctorName, d.doctorDocumentNumber, d.doctorSpecialty,
+                p.diagnosisInProgress, d.kind, d.filename, d.mimeType, d.sizeBytes, d.contentSha256, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where p.id = :patientId and (d.uploadedAt, d.id) < (:uploadedAt, :id)
+            order by d.uploadedAt desc, d.id desc
+            """)
+    List<ClinicalDocumentSummary> findSummaryPageDescAfter(@Param("patientId") UUID patientId,
+                                                           @Param("uploadedAt") OffsetDateTime uploadedAt,
+                                                           @Param("id") UUID id,
+                                                           Pageable pageable);
+
+    /**
+     * Lotes de campos indexables para reconstruir el índice de búsqueda, recorridos por ID.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentSearchEntry(
+                d.id, p.id, p.documentNumber, e.id, d.kind, d.filename, d.doctorName, d.doctorSpecialty,
+                p.treatment, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            order by d.id
+            """)
+    List<DocumentSearchEntry> findSearchEntries(Pageable pageable);
+
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentSearchEntry(
+                d.id, p.id, p.documentNumber, e.id, d.kind, d.filename, d.doctorName, d.doctorSpecialty,
+                p.treatment, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where d.id > :afterId
+            order by d.id
+            """)
+    List<DocumentSearchEntry> findSearchEntriesAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Campos indexables de los documentos de un lote del outbox de cambios.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentSearchEntry(
+                d.id, p.id, p.documentNumber, e.id, d.kind, d.filename, d.doctorName, d.doctorSpecialty,
+                p.treatment, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where d.id in :ids
+            """)
+    List<DocumentSearchEntry> findSearchEntriesByIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Lotes de campos indexables de los documentos de un paciente, recorridos por ID.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentSearchEntry(
+                d.id, p.id, p.documentNumber, e.id, d.kind, d.filename, d.doctorName, d.doctorSpecialty,
+                p.treatment, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where p.id = :patientId
+            order by d.id
+            """)
+    List<DocumentSearchEntry> findSearchEntriesByPatient(@Param("patientId") UUID patientId, Pageable pageable);
+
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentSearchEntry(
+                d.id, p.id, p.documentNumber, e.id, d.kind, d.filename, d.doctorName, d.doctorSpecialty,
+                p.treatment, d.uploadedAt)
+            from ClinicalDocument d join d.patient p join d.uploadedBy e
+            where p.id = :patientId and d.id > :afterId
+            order by d.id
+            """)
+    List<DocumentSearchEntry> findSearchEntriesByPatientAfter(@Param("patientId") UUID patientId,
+                                                              @Param("afterId") UUID afterId,
+                                                              Pageable pageable);
+
+    /**
+     * Obtiene la referencia al contenido de un documento sin leer el contenido.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentContentRef(
+                d.id, d.filename, d.mimeType, d.sizeBytes, d.blobKey, d.contentCodec, d.contentSha256, d.uploadedAt)
+            from ClinicalDocument d
+            where d.id = :id
+            """)
+    Optional<DocumentContentRef> findContentRefById(@Param("id") UUID id);
+
+    /**
+     * Obtiene las referencias al contenido de varios documentos (un lote del historial) en una sola consulta.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentContentRef(
+                d.id, d.filename, d.mimeType, d.sizeBytes, d.blobKey, d.contentCodec, d.contentSha256, d.uploadedAt)
+            from ClinicalDocument d
+            where d.id in :ids
+            """)
+    List<DocumentContentRef> findContentRefsByIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Obtiene la versión de un documento (digest del contenido y estado del paciente) sin leer el contenido.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentVersion(d.contentSha256, p.diagnosisInProgress)
+            from ClinicalDocument d join d.patient p
+            where d.id = :id
+            """)
+    Optional<DocumentVersion> findVersionById(@Param("id") UUID id);
+
+    /**
+     * Cantidad de documentos de un paciente y fecha del más reciente.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.PatientDocumentsVersion(count(d), max(d.uploadedAt))
+            from ClinicalDocument d
+            where d.patient.id = :patientId
+            """)
+    PatientDocumentsVersion findPatientDocumentsVersion(@Param("patientId") UUID patientId);
+
+    /**
+     * Referencia a la vista previa de un documento, solo si ya se generó.
+     * El ETag de la vista previa es su clave en el BlobStorage (SHA-256 del JPEG).
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentContentRef(
+                d.id, d.filename, 'image/jpeg', d.previewSizeBytes, d.previewBlobKey,
+                com.medcloud.app.domain.enums.ContentCodec.IDENTITY, d.previewBlobKey, d.uploadedAt)
+            from ClinicalDocument d
+            where d.id = :id and d.previewStatus = com.medcloud.app.domain.enums.PreviewStatus.READY
+            """)
+    Optional<DocumentContentRef> findPreviewRefById(@Param("id") UUID id);
+
+    /**
+     * Documentos de los tipos dados sin vista previa y con intentos disponibles, los más recientes primero.
+     */
+    @Query("""
+            select d.id
+            from ClinicalDocument d
+            where d.previewStatus is null and d.kind in :kinds
+            order by d.uploadedAt desc
+            """)
+    List<UUID> findPendingPreviewIds(@Param("kinds") Collection<DocumentKind> kinds, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            update ClinicalDocument d
+            set d.previewStatus = com.medcloud.app.domain.enums.PreviewStatus.READY,
+                d.previewBlobKey = :blobKey, d.previewSizeBytes = :sizeBytes
+            where d.id = :id
+            """)
+    int markPreviewReady(@Param("id") UUID id, @Param("blobKey") String blobKey, @Param("sizeBytes") long sizeBytes);
+
+    /**
+     * Suma un intento fallido; al llegar a maxAttempts la vista previa queda como FAILED y no se reintenta.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            update ClinicalDocument d
+            set d.previewAttempts = coalesce(d.previewAttempts, 0) + 1,
+                d.previewStatus = case when coalesce(d.previewAttempts, 0) + 1 >= :maxAttempts
+                    then com.medcloud.app.domain.enums.PreviewStatus.FAILED else null end
+            where d.id = :id
+            """)
+    int recordPreviewFailure(@Param("id") UUID id, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * ID del documento creado por una subida asíncrona.
+     */
+    @Query("select d.id from ClinicalDocument d where d.uploadId = :uploadId")
+    Optional<UUID> findIdByUploadId(@Param("uploadId") UUID uploadId);
+
+    /**
+     * Lee solo el contenido Base64 de un documento antiguo (anterior al BlobStorage).
+     */
+    @Query("select d.fileContentBase64 from ClinicalDocument d where d.id = :id")
+    Optional<String> findLegacyContentById(@Param("id") UUID id);
 }
@@ -0,0 +1,77 @@
+package com.medcloud.app.persistence.jpa;
+
+import com.medcloud.app.domain.dto.DocumentChange;
+import com.medcloud.app.persistence.entity.DocumentChangeEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Las lecturas del outbox son @Transactional (no readOnly) para ir siempre al primario:
+ * en la réplica el despachador podría ver los cambios tarde o saltarse alguno.
+ */
+public interface DocumentChangeJpaRepository extends JpaRepository<DocumentChangeEntity, Long> {
+
+    @Transactional
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentChange(
+                c.id, c.documentId, c.patientDocumentNumber, c.uploadedByEpsId, c.kind, c.filename, c.mimeType, c.uploadedAt)
+            from DocumentChangeEntity c
+            where c.id > :afterId
+            order by c.id
+            """)
+    List<DocumentChange> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    @Transactional
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentChange(
+                c.id, c.documentId, c.patientDocumentNumber, c.uploadedByEpsId, c.kind, c.filename, c.mimeType, c.uploadedAt)
+            from DocumentChangeEntity c
+            where c.id in :ids
+            order by c.id
+            """)
+    List<DocumentChange> findByIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentChange(
+                c.id, c.documentId, c.patientDocumentNumber, c.uploadedByEpsId, c.kind, c.filename, c.mimeType, c.uploadedAt)
+            from DocumentChangeEntity c
+            where c.uploadedByEpsId = :epsId and c.id > :afterId and c.id <= :upToId
+            order by c.id
+            """)
+    List<DocumentChange> findRangeByEps(@Param("epsId") UUID epsId, @Param("afterId") long afterId,
+                                        @Param("upToId") long upToId, Pageable pageable);
+
+    @Transactional
+    @Query("""
+            select new com.medcloud.app.domain.dto.DocumentChange(
+                c.id, c.documentId, c.patientDocumentNumber, c.uploadedByEpsId, c.kind, c.filename, c.mimeType, c.uploadedAt)
+            from DocumentChangeEntity c
+            where c.patientDocumentNumber = :documentNumber and c.id > :afterId and c.id <= :upToId
+            order by c.id
+            """)
+    List<DocumentChange> findRangeByPatient(@Param("documentNumber") String documentNumber, @Param("afterId") long afterId,
+                                            @Param("upToId") long upToId, Pageable pageable);
+
+    @Transactional
+    @Query("select coalesce(max(c.id), 0) from DocumentChangeEntity c")
+    long findLastId();
+
+    @Transactional
+    @Query("select coalesce(min(c.id), 0) from DocumentChangeEntity c")
+    long findFirstId();
+
+    @Transactional
+    @Modifying
+    @Query("delete from DocumentChangeEntity c where c.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
@@ -2,10 +2,47 @@ package com.medcloud.app.persistence.jpa;
 
 import com.medcloud.app.persistence.entity.PatientEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Las consultas declaradas aquí no abren transacción propia: fuera de una transacción de solo lectura
+ * van al primario (ver ReadWriteRoutingDataSource).
+ */
 public interface JpaPatient extends JpaRepository<PatientEntity, UUID> {
     Optional<PatientEntity> findByDocumentNumber(String documentNumber);
+    List<PatientEntity> findAllByDocumentNumberIn(Collection<String> documentNumbers);
+
+    /**
+     * Upsert atómico por cédula (PostgreSQL). Inserta el paciente o actualiza el existente solo si
+     * no tiene diagnóstico en curso y algún dato cambió; devuelve la fila escrita, o vacío si no
+     * se escribió nada. Aun sin escritura la fila existente queda bloqueada hasta el fin de la transacción.
+     */
+    @Transactional
+    @Query(value = """
+            insert into patients (id, document_number, full_name, birth_date, treatment, diagnosis_in_progress)
+            values (:id, :documentNumber, :fullName, :birthDate, :treatment, :diagnosisInProgress)
+            on conflict (document_number) do update
+            set full_name = excluded.full_name,
+                birth_date = excluded.birth_date,
+                treatment = excluded.treatment,
+                diagnosis_in_progress = excluded.diagnosis_in_progress
+            where patients.diagnosis_in_progress = false
+              and (patients.full_name, patients.birth_date, patients.treatment, patients.diagnosis_in_progress)
+                  is distinct from (excluded.full_name, excluded.birth_date, excluded.treatment, excluded.diagnosis_in_progress)
+            returning *
+            """, nativeQuery = true)
+    Optional<PatientEntity> upsertByDocumentNumber(@Param("id") UUID id,
+                                                   @Param("documentNumber") String documentNumber,
+                                                   @Param("fullName") String fullName,
+                                                   @Param("birthDate") LocalDate birthDate,
+                                                   @Param("treatment") String treatment,
+                                                   @Param("diagnosisInProgress") boolean diagnosisInProgress);
 }
@@ -2,12 +2,16 @@ package com.medcloud.app.persistence.jpa;
 
 import com.medcloud.app.domain.enums.RoleName;
 import com.medcloud.app.persistence.entity.RoleEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface JpaRole extends JpaRepository<RoleEntity, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<RoleEntity> findByName(RoleName name);
 }
\ No newline at end of file
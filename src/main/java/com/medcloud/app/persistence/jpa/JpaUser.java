@@ -1,13 +1,48 @@
 package com.medcloud.app.persistence.jpa;
 
+import com.medcloud.app.domain.dto.EpsTokenState;
 import com.medcloud.app.persistence.entity.EpsEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface JpaUser extends JpaRepository<EpsEntity, UUID> {
     boolean existsByEmail(String email);
+
+    // Consultas por email/username en la cache de consultas: devuelven IDs que se resuelven
+    // contra la región "eps"; se invalidan solas con cualquier escritura sobre la tabla eps.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<EpsEntity> findByEmail(String email);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<EpsEntity> findByUsername(String username);
+
+    /**
+     * Usuarios con tokens revocados o deshabilitados; el resto no necesita verificación.
+     */
+    @Query("""
+            select new com.medcloud.app.domain.dto.EpsTokenState(e.id, e.tokenVersion, e.enabled)
+            from EpsEntity e
+            where e.tokenVersion > 0 or e.enabled = false
+            """)
+    List<EpsTokenState> findTokenStates();
+
+    @Transactional
+    @Modifying
+    @Query("update EpsEntity e set e.tokenVersion = e.tokenVersion + 1 where e.id = :id")
+    int incrementTokenVersion(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("update EpsEntity e set e.passwordHash = :passwordHash where e.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("passwordHash") String passwordHash);
 }
@@ -2,6 +2,7 @@ package com.medcloud.app.persistence.mapper;
 
 import com.medcloud.app.domain.dto.ClinicalDocumentCreateRequest;
 import com.medcloud.app.domain.dto.ClinicalDocumentDto;
+import com.medcloud.app.domain.dto.ClinicalDocumentUploadMetadata;
 import com.medcloud.app.persistence.entity.ClinicalDocument;
 import org.springframework.stereotype.Component;
 
@@ -20,7 +21,6 @@ public class ClinicalDocumentMapper {
         ClinicalDocument entity = new ClinicalDocument();
         entity.setKind(dto.getKind());
         entity.setFilename(dto.getFilename());
-        entity.setFileContentBase64(dto.getFileContentBase64());
         entity.setMimeType(dto.getMimeType());
         entity.setSizeBytes(dto.getSizeBytes());
         entity.setUploadedAt(OffsetDateTime.now());
@@ -28,8 +28,47 @@ public class ClinicalDocumentMapper {
         return entity;
     }
 
+    /**
+     * Crea la entidad a partir de los metadatos de una subida por streaming.
+     * El contenido y su tamaño los asigna el servicio después de almacenarlo.
+     */
+    public ClinicalDocument toEntity(ClinicalDocumentUploadMetadata metadata) {
+        if (metadata == null) return null;
+
+        ClinicalDocument entity = new ClinicalDocument();
+        entity.setKind(metadata.getKind());
+        entity.setFilename(metadata.getFilename());
+        entity.setMimeType(metadata.getMimeType());
+        entity.setDoctorName(metadata.getDoctorName());
+        entity.setDoctorDocumentNumber(metadata.getDoctorDocumentNumber());
+        entity.setDoctorSpecialty(metadata.getDoctorSpecialty());
+        entity.setUploadedAt(OffsetDateTime.now());
+
+        return entity;
+    }
+
+    /**
+     * Metadatos de una subida Base64, sin el contenido (subida masiva y asíncrona).
+     */
+    public ClinicalDocumentUploadMetadata toUploadMetadata(ClinicalDocumentCreateRequest dto) {
+        if (dto == null) return null;
+
+        return new ClinicalDocumentUploadMetadata(dto.getPatientDocumentNumber(), dto.getPatientFullName(),
+                dto.getPatientBirthDate(), dto.getPatientTreatment(), dto.getPatientDiagnosisInProgress(),
+                dto.getUploadedByEpsId(), dto.getDoctorName(), dto.getDoctorDocumentNumber(), dto.getDoctorSpecialty(),
+                dto.getKind(), dto.getFilename(), dto.getMimeType());
+    }
+
     public ClinicalDocumentDto toDto(ClinicalDocument entity) {
         if (entity == null) return null;
+        return toDto(entity, entity.getFileContentBase64());
+    }
+
+    /**
+     * Mapea la entidad usando el contenido Base64 indicado (p. ej. leído del almacenamiento de archivos).
+     */
+    public ClinicalDocumentDto toDto(ClinicalDocument entity, String fileContentBase64) {
+        if (entity == null) return null;
 
         return ClinicalDocumentDto.builder()
                 .id(entity.getId() != null ? entity.getId().toString() : null)
@@ -42,7 +81,7 @@ public class ClinicalDocumentMapper {
                 .patientDiagnosisInProgress(entity.getPatient() != null ? entity.getPatient().isDiagnosisInProgress() : null)
                 .kind(entity.getKind())
                 .filename(entity.getFilename())
-                .fileContentBase64(entity.getFileContentBase64())
+                .fileContentBase64(fileContentBase64)
                 .mimeType(entity.getMimeType())
                 .sizeBytes(entity.getSizeBytes())
                 .uploadedAt(entity.getUploadedAt())
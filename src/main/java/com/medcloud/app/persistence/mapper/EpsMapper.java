@@ -21,6 +21,7 @@ public interface EpsMapper {
     @Mapping(target = "roles", ignore = true)
     @Mapping(target = "epsName", source = "fullName")
     @Mapping(target = "nit", ignore = true)
+    @Mapping(target = "tokenVersion", ignore = true)
     EpsEntity toEntity(UserRequestCreate request);
 
     // EpsEntity → UserResponse
@@ -0,0 +1,45 @@
+package com.medcloud.app.persistence.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Registra las sentencias JDBC (y lotes) que ejecutó cada petición HTTP, sumando todas sus
+ * sesiones de Hibernate, etiquetadas por el patrón del endpoint (hibernate.request.statements).
+ * El trabajo que una petición delega a otro hilo (p. ej. el login) no se cuenta aquí.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestStatementMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SessionStatementMetrics.startRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = SessionStatementMetrics.finishRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder("hibernate.request.statements")
+                    .description("Sentencias JDBC ejecutadas por petición HTTP")
+                    .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(1000.0)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+}
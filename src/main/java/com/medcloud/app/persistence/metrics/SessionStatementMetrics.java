@@ -0,0 +1,79 @@
+package com.medcloud.app.persistence.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.engine.spi.SessionEventListener;
+
+/**
+ * Cuenta las sentencias JDBC, los lotes y las lecturas de cache de segundo nivel de cada sesión
+ * de Hibernate y, al cerrarla, las registra como distribuciones. Sin open-in-view una petición
+ * puede abrir varias sesiones; RequestStatementMetricsFilter suma las de la petición en curso.
+ * Hibernate crea una instancia por sesión (hibernate.session.events.auto), por eso los medidores
+ * se registran en el registro global de Micrometer, al que Spring Boot agrega el suyo.
+ */
+public class SessionStatementMetrics implements SessionEventListener {
+
+    // Sentencias y lotes acumulados en la petición HTTP del hilo actual (null fuera de una petición).
+    private static final ThreadLocal<int[]> REQUEST_STATEMENTS = new ThreadLocal<>();
+
+    private int statements;
+    private int batches;
+    private int cacheHits;
+    private int cacheMisses;
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        statements++;
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        batches++;
+    }
+
+    @Override
+    public void cacheGetEnd(boolean hit) {
+        if (hit) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+        }
+    }
+
+    @Override
+    public void end() {
+        if (statements == 0 && batches == 0 && cacheHits == 0 && cacheMisses == 0) {
+            return;
+        }
+        int[] request = REQUEST_STATEMENTS.get();
+        if (request != null) {
+            request[0] += statements + batches;
+        }
+        record("hibernate.session.statements", "Sentencias JDBC ejecutadas por sesión", statements);
+        record("hibernate.session.batches", "Lotes JDBC ejecutados por sesión", batches);
+        record("hibernate.session.cache.hits", "Aciertos de la cache de segundo nivel por sesión", cacheHits);
+        record("hibernate.session.cache.misses", "Fallos de la cache de segundo nivel por sesión", cacheMisses);
+    }
+
+    static void startRequest() {
+        REQUEST_STATEMENTS.set(new int[1]);
+    }
+
+    /**
+     * Termina la cuenta de la petición del hilo actual y devuelve sus sentencias y lotes.
+     */
+    static int finishRequest() {
+        int[] request = REQUEST_STATEMENTS.get();
+        REQUEST_STATEMENTS.remove();
+        return request != null ? request[0] : 0;
+    }
+
+    private static void record(String name, String description, int value) {
+        DistributionSummary.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(Metrics.globalRegistry)
+                .record(value);
+    }
+}
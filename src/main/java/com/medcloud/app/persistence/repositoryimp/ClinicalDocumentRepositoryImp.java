@@ -1,11 +1,21 @@
 package com.medcloud.app.persistence.repositoryimp;
 
+import com.medcloud.app.domain.dto.ClinicalDocumentSummary;
+import com.medcloud.app.domain.dto.DocumentContentRef;
+import com.medcloud.app.domain.dto.DocumentSearchEntry;
+import com.medcloud.app.domain.dto.DocumentVersion;
+import com.medcloud.app.domain.dto.PatientDocumentsVersion;
+import com.medcloud.app.domain.enums.DocumentKind;
 import com.medcloud.app.domain.repository.ClinicalDocumentRepository;
 import com.medcloud.app.persistence.entity.ClinicalDocument;
 import com.medcloud.app.persistence.jpa.ClinicalDocumentJpaRepository; // Asumiendo que esta es tu interfaz JpaRepository
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -38,8 +48,98 @@ public class ClinicalDocumentRepositoryImp implements ClinicalDocumentRepository
         return jpaRepository.findByPatientId(patientId);
     }
 
+    @Override
+    public List<ClinicalDocumentSummary> findSummariesByPatientId(UUID patientId) {
+        return jpaRepository.findSummariesByPatientId(patientId);
+    }
+
+    @Override
+    public List<ClinicalDocumentSummary> findSummaryPage(UUID patientId, OffsetDateTime afterUploadedAt, UUID afterId,
+                                                         boolean ascending, int limit) {
+        Pageable pageable = PageRequest.ofSize(limit);
+        if (afterUploadedAt == null || afterId == null) {
+            return ascending
+                    ? jpaRepository.findSummaryPageAsc(patientId, pageable)
+                    : jpaRepository.findSummaryPageDesc(patientId, pageable);
+        }
+        return ascending
+                ? jpaRepository.findSummaryPageAscAfter(patientId, afterUploadedAt, afterId, pageable)
+                : jpaRepository.findSummaryPageDescAfter(patientId, afterUploadedAt, afterId, pageable);
+    }
+
+    @Override
+    public List<DocumentSearchEntry> findSearchEntries(UUID afterId, int limit) {
+        Pageable pageable = PageRequest.ofSize(limit);
+        return afterId == null
+                ? jpaRepository.findSearchEntries(pageable)
+                : jpaRepository.findSearchEntriesAfter(afterId, pageable);
+    }
+
+    @Override
+    public List<DocumentSearchEntry> findSearchEntriesByIds(Collection<UUID> ids) {
+        return ids.isEmpty() ? List.of() : jpaRepository.findSearchEntriesByIds(ids);
+    }
+
+    @Override
+    public List<DocumentSearchEntry> findSearchEntriesByPatient(UUID patientId, UUID afterId, int limit) {
+        Pageable pageable = PageRequest.ofSize(limit);
+        return afterId == null
+                ? jpaRepository.findSearchEntriesByPatient(patientId, pageable)
+                : jpaRepository.findSearchEntriesByPatientAfter(patientId, afterId, pageable);
+    }
+
+    @Override
+    public Optional<DocumentContentRef> findContentRefById(UUID id) {
+        return jpaRepository.findContentRefById(id);
+    }
+
+    @Override
+    public List<DocumentContentRef> findContentRefsByIds(Collection<UUID> ids) {
+        return jpaRepository.findContentRefsByIds(ids);
+    }
+
+    @Override
+    public Optional<DocumentVersion> findVersionById(UUID id) {
+        return jpaRepository.findVersionById(id);
+    }
+
+    @Override
+    public PatientDocumentsVersion findPatientDocumentsVersion(UUID patientId) {
+        return jpaRepository.findPatientDocumentsVersion(patientId);
+    }
+
+    @Override
+    public Optional<String> findLegacyContentById(UUID id) {
+        return jpaRepository.findLegacyContentById(id);
+    }
+
     @Override
     public void deleteById(UUID id) {
         jpaRepository.deleteById(id);
     }
+
+    @Override
+    public Optional<DocumentContentRef> findPreviewRefById(UUID id) {
+        return jpaRepository.findPreviewRefById(id);
+    }
+
+    @Override
+    public List<UUID> findPendingPreviewIds(Collection<DocumentKind> kinds, int limit) {
+        return jpaRepository.findPendingPreviewIds(kinds, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public void markPreviewReady(UUID id, String blobKey, long sizeBytes) {
+        jpaRepository.markPreviewReady(id, blobKey, sizeBytes);
+    }
+
+    @Override
+    public void recordPreviewFailure(UUID id, int maxAttempts) {
+        jpaRepository.recordPreviewFailure(id, maxAttempts);
+    }
+
+    @Override
+    public Optional<UUID> findIdByUploadId(UUID uploadId) {
+        return jpaRepository.findIdByUploadId(uploadId);
+    }
 }
@@ -0,0 +1,73 @@
+package com.medcloud.app.persistence.repositoryimp;
+
+import com.medcloud.app.domain.dto.DocumentChange;
+import com.medcloud.app.domain.repository.DocumentChangeOutbox;
+import com.medcloud.app.persistence.entity.DocumentChangeEntity;
+import com.medcloud.app.persistence.jpa.DocumentChangeJpaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementación del outbox de cambios sobre la tabla document_change_outbox.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DocumentChangeOutboxImp implements DocumentChangeOutbox {
+
+    private final DocumentChangeJpaRepository jpaRepository;
+
+    @Override
+    public void append(DocumentChange change) {
+        DocumentChangeEntity entity = new DocumentChangeEntity();
+        entity.setDocumentId(change.documentId());
+        entity.setPatientDocumentNumber(change.patientDocumentNumber());
+        entity.setUploadedByEpsId(change.uploadedByEpsId());
+        entity.setKind(change.kind());
+        entity.setFilename(change.filename());
+        entity.setMimeType(change.mimeType());
+        entity.setUploadedAt(change.uploadedAt());
+        entity.setCreatedAt(OffsetDateTime.now());
+        jpaRepository.save(entity);
+    }
+
+    @Override
+    public List<DocumentChange> findAfter(long afterId, int limit) {
+        return jpaRepository.findAfter(afterId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public List<DocumentChange> findBySequences(Collection<Long> sequences) {
+        return sequences.isEmpty() ? List.of() : jpaRepository.findByIds(sequences);
+    }
+
+    @Override
+    public List<DocumentChange> findRangeByEps(UUID epsId, long afterId, long upToId, int limit) {
+        return jpaRepository.findRangeByEps(epsId, afterId, upToId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public List<DocumentChange> findRangeByPatient(String documentNumber, long afterId, long upToId, int limit) {
+        return jpaRepository.findRangeByPatient(documentNumber, afterId, upToId, PageRequest.ofSize(limit));
+    }
+
+    @Override
+    public long lastSequence() {
+        return jpaRepository.findLastId();
+    }
+
+    @Override
+    public long firstSequence() {
+        return jpaRepository.findFirstId();
+    }
+
+    @Override
+    public int deleteCreatedBefore(OffsetDateTime cutoff) {
+        return jpaRepository.deleteCreatedBefore(cutoff);
+    }
+}
@@ -6,6 +6,8 @@ import com.medcloud.app.persistence.jpa.JpaPatient;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,6 +32,17 @@ public class PatientRepositoryImp implements PatientRepository {
         return jpaPatient.findByDocumentNumber(documentNumber);
     }
 
+    @Override
+    public List<PatientEntity> findAllByDocumentNumberIn(Collection<String> documentNumbers) {
+        return jpaPatient.findAllByDocumentNumberIn(documentNumbers);
+    }
+
+    @Override
+    public Optional<PatientEntity> upsertByDocumentNumber(PatientEntity patient) {
+        return jpaPatient.upsertByDocumentNumber(UUID.randomUUID(), patient.getDocumentNumber(), patient.getFullName(),
+                patient.getBirthDate(), patient.getTreatment(), patient.isDiagnosisInProgress());
+    }
+
     @Override
     public PatientEntity save(PatientEntity patient) {
         return jpaPatient.save(patient);
@@ -1,5 +1,6 @@
 package com.medcloud.app.persistence.repositoryimp;
 
+import com.medcloud.app.domain.dto.EpsTokenState;
 import com.medcloud.app.domain.exceptions.UserAlreadyExistException;
 import com.medcloud.app.domain.repository.UserRepository;
 import com.medcloud.app.persistence.entity.EpsEntity;
@@ -21,7 +22,8 @@ public class UserRepositoryImp implements UserRepository {
 
     @Override
     public EpsEntity save(EpsEntity toSave) {
-        if (this.jpaUser.existsByEmail(toSave.getEmail())){
+        // Solo un usuario nuevo puede chocar con un correo existente; una actualización no.
+        if (toSave.getId() == null && this.jpaUser.existsByEmail(toSave.getEmail())){
             throw new UserAlreadyExistException("User already exist");
         }
 
@@ -61,5 +63,17 @@ public class UserRepositoryImp implements UserRepository {
         return this.jpaUser.findByUsername(username);
     }
 
+    public List<EpsTokenState> findTokenStates() {
+        return this.jpaUser.findTokenStates();
+    }
+
+    public int incrementTokenVersion(UUID id) {
+        return this.jpaUser.incrementTokenVersion(id);
+    }
+
+    public int updatePasswordHash(String email, String passwordHash) {
+        return this.jpaUser.updatePasswordHash(email, passwordHash);
+    }
+
 }
 
@@ -0,0 +1,327 @@
+package com.medcloud.app.persistence.search;
+
+import com.medcloud.app.domain.dto.ClinicalDocumentSearchHit;
+import com.medcloud.app.domain.dto.ClinicalDocumentSearchResult;
+import com.medcloud.app.domain.dto.DocumentSearchEntry;
+import com.medcloud.app.domain.dto.DocumentSearchQuery;
+import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.domain.exceptions.DocumentStorageException;
+import com.medcloud.app.domain.repository.DocumentSearchIndex;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Implementación de DocumentSearchIndex con un índice invertido Lucene embebido en disco.
+ * Los campos de texto se analizan sin distinguir mayúsculas ni tildes ("cardiología" = "cardiologia");
+ * kind, EPS y cédula son filtros exactos y uploadedAt se indexa como punto numérico para rangos
+ * y como doc values para ordenar. Las escrituras se hacen visibles con un refresco periódico
+ * (near-real-time) y se confirman a disco con un commit periódico, junto con la posición en el
+ * outbox de cambios hasta la que el índice está al día (datos de usuario del commit).
+ */
+@Component
+public class LuceneDocumentSearchIndex implements DocumentSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LuceneDocumentSearchIndex.class);
+
+    static final String ID = "id";
+    static final String PATIENT_ID = "patientId";
+    static final String PATIENT_DOCUMENT_NUMBER = "patientDocumentNumber";
+    static final String EPS_ID = "epsId";
+    static final String KIND = "kind";
+    static final String FILENAME = "filename";
+    static final String DOCTOR_NAME = "doctorName";
+    static final String DOCTOR_SPECIALTY = "doctorSpecialty";
+    static final String TREATMENT = "treatment";
+    static final String UPLOADED_AT = "uploadedAt";
+    // SHA-256 del tratamiento: detecta documentos indexados con un tratamiento anterior del paciente.
+    static final String TREATMENT_KEY = "treatmentKey";
+    static final String OUTBOX_CURSOR = "outboxCursor";
+
+    /** Peso de cada campo de texto en el ranking (BM25). */
+    private static final Map<String, Float> TEXT_FIELD_WEIGHTS = Map.of(
+            DOCTOR_NAME, 2.0f,
+            DOCTOR_SPECIALTY, 2.0f,
+            FILENAME, 1.5f,
+            TREATMENT, 1.0f);
+
+    private final Analyzer analyzer;
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    public LuceneDocumentSearchIndex(@Value("${medcloud.search.path:./data/search-index}") String path,
+                                     @Value("${medcloud.search.ram-buffer-mb:64}") double ramBufferMb) throws IOException {
+        this.analyzer = new FoldingAnalyzer();
+        this.directory = FSDirectory.open(Path.of(path).toAbsolutePath().normalize());
+        IndexWriterConfig config = new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND)
+                .setRAMBufferSizeMB(ramBufferMb);
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    @Override
+    public void index(DocumentSearchEntry entry) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, entry.id().toString(), Field.Store.YES));
+        addKeyword(doc, PATIENT_ID, entry.patientId() != null ? entry.patientId().toString() : null, Field.Store.YES);
+        addKeyword(doc, PATIENT_DOCUMENT_NUMBER, entry.patientDocumentNumber(), Field.Store.NO);
+        addKeyword(doc, EPS_ID, entry.uploadedByEpsId() != null ? entry.uploadedByEpsId().toString() : null, Field.Store.YES);
+        addKeyword(doc, KIND, entry.kind() != null ? entry.kind().name() : null, Field.Store.YES);
+        addText(doc, FILENAME, entry.filename(), Field.Store.YES);
+        addText(doc, DOCTOR_NAME, entry.doctorName(), Field.Store.YES);
+        addText(doc, DOCTOR_SPECIALTY, entry.doctorSpecialty(), Field.Store.YES);
+        // El tratamiento se busca pero no se guarda en el índice: no hace falta mostrarlo en los resultados.
+        addText(doc, TREATMENT, entry.patientTreatment(), Field.Store.NO);
+        doc.add(new StringField(TREATMENT_KEY, treatmentKey(entry.patientTreatment()), Field.Store.NO));
+        if (entry.uploadedAt() != null) {
+            long millis = entry.uploadedAt().toInstant().toEpochMilli();
+            doc.add(new LongPoint(UPLOADED_AT, millis));
+            doc.add(new NumericDocValuesField(UPLOADED_AT, millis));
+            doc.add(new StoredField(UPLOADED_AT, millis));
+        }
+        try {
+            writer.updateDocument(new Term(ID, entry.id().toString()), doc);
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible indexar el documento " + entry.id(), e);
+        }
+    }
+
+    @Override
+    public ClinicalDocumentSearchResult search(DocumentSearchQuery query) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        if (query.text() != null && !query.text().isBlank()) {
+            // SimpleQueryParser no lanza errores de sintaxis: apto para texto escrito por el usuario.
+            SimpleQueryParser parser = new SimpleQueryParser(analyzer, TEXT_FIELD_WEIGHTS);
+            parser.setDefaultOperator(BooleanClause.Occur.MUST);
+            builder.add(parser.parse(query.text()), BooleanClause.Occur.MUST);
+        } else {
+            builder.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        // Los filtros no participan del puntaje.
+        if (query.kind() != null) {
+            builder.add(new TermQuery(new Term(KIND, query.kind().name())), BooleanClause.Occur.FILTER);
+        }
+        if (query.uploadedByEpsId() != null) {
+            builder.add(new TermQuery(new Term(EPS_ID, query.uploadedByEpsId().toString())), BooleanClause.Occur.FILTER);
+        }
+        if (query.patientDocumentNumber() != null && !query.patientDocumentNumber().isBlank()) {
+            builder.add(new TermQuery(new Term(PATIENT_DOCUMENT_NUMBER, query.patientDocumentNumber())), BooleanClause.Occur.FILTER);
+        }
+        if (query.from() != null || query.to() != null) {
+            long from = query.from() != null ? query.from().toInstant().toEpochMilli() : Long.MIN_VALUE;
+            long to = query.to() != null ? query.to().toInstant().toEpochMilli() : Long.MAX_VALUE;
+            builder.add(LongPoint.newRangeQuery(UPLOADED_AT, from, to), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs top = query.sortByDate()
+                    ? searcher.search(builder.build(), query.limit(),
+                            new Sort(new SortField(UPLOADED_AT, SortField.Type.LONG, true)), true)
+                    : searcher.search(builder.build(), query.limit());
+
+            StoredFields storedFields = searcher.storedFields();
+            List<ClinicalDocumentSearchHit> hits = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc scoreDoc : top.scoreDocs) {
+                hits.add(toHit(storedFields.document(scoreDoc.doc), scoreDoc.score));
+            }
+            return new ClinicalDocumentSearchResult(top.totalHits.value,
+                    top.totalHits.relation == TotalHits.Relation.EQUAL_TO, hits);
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible consultar el índice de búsqueda", e);
+        } finally {
+            releaseQuietly(searcher);
+        }
+    }
+
+    @Override
+    public long count() {
+        return writer.getDocStats().numDocs;
+    }
+
+    @Override
+    public long countWithOtherTreatment(UUID patientId, String treatment) {
+        BooleanQuery query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(PATIENT_ID, patientId.toString())), BooleanClause.Occur.FILTER)
+                .add(new TermQuery(new Term(TREATMENT_KEY, treatmentKey(treatment))), BooleanClause.Occur.MUST_NOT)
+                .build();
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            return searcher.count(query);
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible consultar el índice de búsqueda", e);
+        } finally {
+            releaseQuietly(searcher);
+        }
+    }
+
+    @Override
+    public void setOutboxCursor(long sequence) {
+        writer.setLiveCommitData(Map.of(OUTBOX_CURSOR, Long.toString(sequence)).entrySet());
+    }
+
+    @Override
+    public OptionalLong outboxCursor() {
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data) {
+                if (OUTBOX_CURSOR.equals(entry.getKey())) {
+                    return OptionalLong.of(Long.parseLong(entry.getValue()));
+                }
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${medcloud.search.refresh-ms:1000}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.warn("Search index refresh failed", e);
+        }
+    }
+
+    /**
+     * Confirma a disco los cambios pendientes; ante una caída solo se pierde lo indexado desde el último commit.
+     */
+    @Scheduled(fixedDelayString = "${medcloud.search.commit-ms:30000}")
+    public void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            logger.warn("Search index commit failed", e);
+        }
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        searcherManager.close();
+        writer.commit();
+        writer.close();
+        directory.close();
+    }
+
+    private ClinicalDocumentSearchHit toHit(Document doc, float score) {
+        StoredField uploadedAt = (StoredField) doc.getField(UPLOADED_AT);
+        return new ClinicalDocumentSearchHit(
+                UUID.fromString(doc.get(ID)),
+                doc.get(PATIENT_ID) != null ? UUID.fromString(doc.get(PATIENT_ID)) : null,
+                doc.get(EPS_ID) != null ? UUID.fromString(doc.get(EPS_ID)) : null,
+                doc.get(KIND) != null ? DocumentKind.valueOf(doc.get(KIND)) : null,
+                doc.get(FILENAME),
+                doc.get(DOCTOR_NAME),
+                doc.get(DOCTOR_SPECIALTY),
+                uploadedAt != null
+                        ? OffsetDateTime.ofInstant(Instant.ofEpochMilli(uploadedAt.numericValue().longValue()), ZoneOffset.UTC)
+                        : null,
+                Float.isNaN(score) ? 0f : score);
+    }
+
+    private void releaseQuietly(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            logger.warn("Could not release index searcher", e);
+        }
+    }
+
+    private static String treatmentKey(String treatment) {
+        if (treatment == null || treatment.isBlank()) {
+            return "";
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(treatment.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        }
+    }
+
+    private static void addKeyword(Document doc, String field, String value, Field.Store store) {
+        if (value != null) {
+            doc.add(new StringField(field, value, store));
+        }
+    }
+
+    private static void addText(Document doc, String field, String value, Field.Store store) {
+        if (value != null && !value.isBlank()) {
+            doc.add(new TextField(field, value, store));
+        }
+    }
+
+    /**
+     * Tokenizador estándar, minúsculas y sin tildes, tanto al indexar como al consultar.
+     */
+    private static final class FoldingAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer source = new StandardTokenizer();
+            TokenStream result = new ASCIIFoldingFilter(new LowerCaseFilter(source));
+            return new TokenStreamComponents(source, result);
+        }
+
+        @Override
+        protected TokenStream normalize(String fieldName, TokenStream in) {
+            return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.medcloud.app.persistence.spool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medcloud.app.domain.dto.StagedUpload;
+import com.medcloud.app.domain.dto.StagedUploadStatus;
+import com.medcloud.app.domain.exceptions.DocumentStorageException;
+import com.medcloud.app.domain.repository.UploadSpool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Spool de subidas asíncronas en el sistema de archivos local (medcloud.upload.async.spool-path).
+ * Cada segmento es un archivo append-only de líneas JSON: una línea por subida aceptada
+ * (escrita con fsync antes de responder 202) y otra cuando su resultado se registra en la BD.
+ * El segmento activo rota al pasar de segment-bytes, y un segmento se elimina cuando todas sus subidas terminaron.
+ * La línea de resultado se escribe en el mismo segmento que la aceptación y sin fsync: si se pierde,
+ * la subida se vuelve a procesar al arrancar y su upload_id evita guardarla dos veces.
+ * Group commit: las aceptaciones se escriben bajo un lock y un solo fsync confirma todas las que
+ * esperan, así el fsync no limita las subidas a una por latencia de disco. Se usan ReentrantLock
+ * y no synchronized para no fijar el hilo portador de los hilos virtuales durante el fsync.
+ */
+@Component
+public class FileUploadSpool implements UploadSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileUploadSpool.class);
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Línea del spool: exactamente uno de los dos campos no es nulo.
+     */
+    record SpoolRecord(StagedUpload accepted, StagedUploadStatus completed) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long segmentBytes;
+
+    // Protege el estado siguiente y las escrituras en los segmentos.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Path, Set<UUID>> pendingBySegment = new HashMap<>();
+    private final Map<UUID, Path> segmentByUpload = new HashMap<>();
+    private FileChannel active;
+    private Path activePath;
+    private long nextSegment;
+    // Número de aceptaciones escritas; cada una espera a que synced lo alcance.
+    private long appended;
+
+    // Un solo fsync a la vez; quien lo hace confirma todas las aceptaciones escritas hasta ese momento.
+    // Orden de adquisición: syncLock y luego lock.
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final AtomicLong synced = new AtomicLong();
+
+    public FileUploadSpool(ObjectMapper objectMapper,
+                           @Value("${medcloud.upload.async.spool-path:./data/upload-spool}") Path directory,
+                           @Value("${medcloud.upload.async.segment-bytes:16777216}") long segmentBytes) {
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    @Override
+    public void append(StagedUpload upload) {
+        byte[] line = line(new SpoolRecord(upload, null));
+        long ticket;
+        lock.lock();
+        try {
+            write(activeSegment(), line);
+            ticket = ++appended;
+            pendingBySegment.computeIfAbsent(activePath, path -> new LinkedHashSet<>()).add(upload.uploadId());
+            segmentByUpload.put(upload.uploadId(), activePath);
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible guardar la subida en el spool", e);
+        } finally {
+            lock.unlock();
+        }
+        awaitSynced(ticket);
+    }
+
+    /**
+     * Espera a que la aceptación ticket esté en disco. Si no hay un fsync en curso que la cubra,
+     * este hilo hace el siguiente para todas las aceptaciones escritas hasta ahora.
+     */
+    private void awaitSynced(long ticket) {
+        while (synced.get() < ticket) {
+            syncLock.lock();
+            try {
+                if (synced.get() >= ticket) {
+                    return;
+                }
+                long upTo;
+                FileChannel channel;
+                lock.lock();
+                try {
+                    upTo = appended;
+                    channel = active;
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    channel.force(false);
+                } catch (ClosedChannelException e) {
+                    // El segmento rotó: activeSegment() ya hizo fsync de todo lo escrito en él.
+                }
+                synced.accumulateAndGet(upTo, Math::max);
+            } catch (IOException e) {
+                throw new DocumentStorageException("No fue posible guardar la subida en el spool", e);
+            } finally {
+                syncLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public void complete(Collection<StagedUploadStatus> outcomes) {
+        lock.lock();
+        try {
+            completeLocked(outcomes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void completeLocked(Collection<StagedUploadStatus> outcomes) {
+        Map<Path, List<StagedUploadStatus>> bySegment = new LinkedHashMap<>();
+        for (StagedUploadStatus outcome : outcomes) {
+            Path segment = segmentByUpload.remove(outcome.uploadId());
+            if (segment != null) {
+                bySegment.computeIfAbsent(segment, path -> new ArrayList<>()).add(outcome);
+            }
+        }
+        for (Map.Entry<Path, List<StagedUploadStatus>> entry : bySegment.entrySet()) {
+            Path segment = entry.getKey();
+            Set<UUID> pending = pendingBySegment.get(segment);
+            entry.getValue().forEach(outcome -> pending.remove(outcome.uploadId()));
+            try {
+                if (pending.isEmpty() && !segment.equals(activePath)) {
+                    pendingBySegment.remove(segment);
+                    Files.deleteIfExists(segment);
+                    continue;
+                }
+                try (FileChannel channel = segment.equals(activePath) ? null
+                        : FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    FileChannel target = channel != null ? channel : active;
+                    for (StagedUploadStatus outcome : entry.getValue()) {
+                        write(target, line(new SpoolRecord(null, outcome)));
+                    }
+                }
+            } catch (IOException e) {
+                // Sin la línea de resultado la subida se reprocesa al arrancar; el upload_id lo hace seguro.
+                logger.warn("Could not record upload outcomes in spool segment {}", segment, e);
+            }
+        }
+    }
+
+    @Override
+    public Recovery recover() {
+        lock.lock();
+        try {
+            return recoverLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Recovery recoverLocked() {
+        Map<UUID, StagedUpload> pending = new LinkedHashMap<>();
+        Map<UUID, StagedUploadStatus> completed = new LinkedHashMap<>();
+        try {
+            Files.createDirectories(directory);
+            for (Path segment : segments()) {
+                nextSegment = Math.max(nextSegment, sequenceOf(segment) + 1);
+                Set<UUID> segmentPending = new LinkedHashSet<>();
+                try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                    String text;
+                    while ((text = reader.readLine()) != null) {
+                        SpoolRecord record = parse(segment, text);
+                        if (record == null) {
+                            continue;
+                        }
+                        if (record.accepted() != null) {
+                            pending.put(record.accepted().uploadId(), record.accepted());
+                            segmentPending.add(record.accepted().uploadId());
+                        } else if (record.completed() != null) {
+                            pending.remove(record.completed().uploadId());
+                            segmentPending.remove(record.completed().uploadId());
+                            completed.put(record.completed().uploadId(), record.completed());
+                        }
+                    }
+                }
+                if (segmentPending.isEmpty()) {
+                    Files.delete(segment);
+                } else {
+                    pendingBySegment.put(segment, segmentPending);
+                    segmentPending.forEach(id -> segmentByUpload.put(id, segment));
+                }
+            }
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible leer el spool de subidas", e);
+        }
+        return new Recovery(List.copyOf(pending.values()), List.copyOf(completed.values()));
+    }
+
+    private FileChannel activeSegment() throws IOException {
+        if (active != null && active.size() < segmentBytes) {
+            return active;
+        }
+        if (active != null) {
+            // Las aceptaciones escritas en el segmento que se cierra quedan en disco antes de rotar.
+            active.force(false);
+            synced.accumulateAndGet(appended, Math::max);
+            active.close();
+            Set<UUID> pending = pendingBySegment.get(activePath);
+            if (pending == null || pending.isEmpty()) {
+                pendingBySegment.remove(activePath);
+                Files.deleteIfExists(activePath);
+            }
+        }
+        Files.createDirectories(directory);
+        activePath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+        active = FileChannel.open(activePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // El fsync del segmento no incluye su entrada en el directorio: sin esto una aceptación
+        // confirmada podría quedar en un archivo que no aparece al arrancar.
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        }
+        return active;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Una línea incompleta (caída durante la escritura) se ignora: esa subida no llegó a responder 202.
+     */
+    private SpoolRecord parse(Path segment, String text) {
+        if (text.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(text, SpoolRecord.class);
+        } catch (JsonProcessingException e) {
+            logger.warn("Skipping unreadable line in spool segment {}", segment);
+            return null;
+        }
+    }
+
+    private byte[] line(SpoolRecord record) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(record);
+            byte[] line = new byte[json.length + 1];
+            System.arraycopy(json, 0, line, 0, json.length);
+            line[json.length] = '\n';
+            return line;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No fue posible serializar la subida", e);
+        }
+    }
+
+    private static void write(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.medcloud.app.persistence.storage;
+
+import com.medcloud.app.domain.exceptions.DocumentStorageException;
+import com.medcloud.app.domain.exceptions.ResourceNotFoundException;
+import com.medcloud.app.domain.repository.BlobStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Implementación de BlobStorage sobre el sistema de archivos local, direccionada por contenido.
+ * Cada blob se guarda en {root}/{sha[0..2]}/{sha[2..4]}/{sha}, de modo que ningún directorio
+ * acumula demasiados archivos y un mismo archivo subido por varias EPS se guarda una sola vez.
+ * La escritura va a un temporal en {root}/tmp y se publica con un rename atómico.
+ */
+@Component
+@ConditionalOnProperty(name = "medcloud.storage.backend", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemBlobStorage implements BlobStorage {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("^[0-9a-f]{64}$");
+
+    private final Path root;
+    private final Path tempDir;
+    private final int chunkSize;
+
+    public FileSystemBlobStorage(@Value("${medcloud.storage.path:./data/documents}") String root,
+                                 @Value("${medcloud.storage.chunk-size:65536}") int chunkSize) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve("tmp");
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public BlobReference store(InputStream content) {
+        Path temp = null;
+        try {
+            Files.createDirectories(tempDir);
+            temp = Files.createTempFile(tempDir, "blob-", ".tmp");
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long written = 0;
+            byte[] buffer = new byte[chunkSize];
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    written += read;
+                }
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(sha256);
+            if (Files.exists(target)) {
+                // Contenido ya almacenado: se reutiliza el blob existente.
+                Files.delete(temp);
+            } else {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Otra subida concurrente publicó el mismo contenido primero.
+                    Files.delete(temp);
+                }
+            }
+            return new BlobReference(sha256, sha256, written);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new DocumentStorageException("No fue posible guardar el contenido del documento", e);
+        } catch (NoSuchAlgorithmException e) {
+            deleteQuietly(temp);
+            throw new IllegalStateException("SHA-256 no disponible en la JVM", e);
+        } catch (RuntimeException e) {
+            // Errores del flujo de origen (p. ej. contenido inválido) no deben dejar temporales.
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Contenido " + key + " no encontrado en el almacenamiento.");
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible leer el contenido " + key, e);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path path = resolve(key);
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("Contenido " + key + " no encontrado en el almacenamiento.");
+        }
+        return Optional.of(path);
+    }
+
+    @Override
+    public void sync(String key) {
+        Path path = resolve(key);
+        try {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            // El fsync del archivo no incluye su entrada de directorio (el ATOMIC_MOVE de store) ni las de
+            // los directorios de shard que store pudo crear: se fuerzan del blob hacia la raíz.
+            for (Path dir = path.getParent(); dir != null && dir.startsWith(root); dir = dir.getParent()) {
+                forceDirectory(dir);
+            }
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("Contenido " + key + " no encontrado en el almacenamiento.");
+        } catch (IOException e) {
+            throw new DocumentStorageException("No fue posible sincronizar el contenido " + key, e);
+        }
+    }
+
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private Path resolve(String key) {
+        if (key == null || !SHA256_HEX.matcher(key).matches()) {
+            throw new IllegalArgumentException("Clave de blob inválida: " + key);
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Un temporal huérfano no afecta la consistencia; se puede limpiar después.
+        }
+    }
+}
@@ -4,8 +4,8 @@ import com.medcloud.app.persistence.entity.EpsEntity;
 import com.medcloud.app.persistence.repositoryimp.UserRepositoryImp;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -14,7 +14,7 @@ import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepositoryImp userRepository;
 
@@ -24,16 +24,35 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .or(() -> userRepository.findByUsername(identifier))
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with identifier: " + identifier));
 
-        return User.builder()
-                .username(user.getEmail())
-                .password(user.getPasswordHash())
-                .authorities(user.getRoles().stream()
+        return new EpsUserDetails(
+                user.getId(),
+                user.getTokenVersion(),
+                user.getEmail(),
+                user.getPasswordHash(),
+                user.isEnabled(),
+                user.getRoles().stream()
                         .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
-                        .collect(Collectors.toList()))
-                .accountExpired(false)
-                .accountLocked(false)
-                .credentialsExpired(false)
-                .disabled(!user.isEnabled())
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * Llamado por el DaoAuthenticationProvider tras un login exitoso cuando el hash guardado
+     * usa un costo BCrypt menor al configurado; el nuevo hash ya viene calculado.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordHash(user.getUsername(), newPassword);
+        if (user instanceof EpsUserDetails eps) {
+            return new EpsUserDetails(
+                    eps.getId(),
+                    eps.getTokenVersion(),
+                    eps.getUsername(),
+                    newPassword,
+                    eps.isEnabled(),
+                    eps.getAuthorities());
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
                 .build();
     }
-}
\ No newline at end of file
+}
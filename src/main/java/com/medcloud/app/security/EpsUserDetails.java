@@ -0,0 +1,25 @@
+package com.medcloud.app.security;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * UserDetails de una EPS con los datos que se firman en el token: ID y versión de tokens.
+ */
+@Getter
+public class EpsUserDetails extends User {
+
+    private final UUID id;
+    private final int tokenVersion;
+
+    public EpsUserDetails(UUID id, int tokenVersion, String username, String password, boolean enabled,
+                          Collection<? extends GrantedAuthority> authorities) {
+        super(username, password, enabled, true, true, true, authorities);
+        this.id = id;
+        this.tokenVersion = tokenVersion;
+    }
+}
@@ -0,0 +1,172 @@
+package com.medcloud.app.security;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reparte un número acotado de peticiones en proceso entre clientes (fair queueing por turnos).
+ * Con lugares libres y nadie esperando la petición pasa sin esperar; si no, espera en la cola de
+ * su cliente y cada lugar que se libera pasa al siguiente cliente en turno, no a la petición más
+ * antigua: un cliente con cien peticiones en cola no retrasa al que tiene una.
+ * Además ningún cliente ocupa más de maxPerClient lugares a la vez.
+ * El lock solo se disputa al entrar y salir; cada petición espera en su propia Condition, así
+ * release despierta solo a la que recibe el lugar. ReentrantLock y no synchronized: la espera no
+ * fija el hilo virtual a su portador.
+ */
+final class FairRequestScheduler {
+
+    private final class Waiter {
+        private final Condition turn = lock.newCondition();
+        private boolean granted;
+    }
+
+    private final int maxConcurrent;
+    private final int maxPerClient;
+    private final int maxQueuedPerClient;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Protegidos por lock.
+    private int inFlight;
+    private int waiting;
+    private final Map<String, Integer> inFlightByClient = new HashMap<>();
+    // Orden de turno: el cliente atendido pasa al final.
+    private final LinkedHashMap<String, ArrayDeque<Waiter>> queues = new LinkedHashMap<>();
+
+    FairRequestScheduler(int maxConcurrent, int maxPerClient, int maxQueuedPerClient, long maxWaitNanos) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxPerClient = maxPerClient;
+        this.maxQueuedPerClient = maxQueuedPerClient;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Espera un lugar para la petición del cliente; si devuelve true hay que llamar a release.
+     * @return false si la cola del cliente está llena o no hubo lugar dentro de maxWait.
+     */
+    boolean acquire(String client) {
+        lock.lock();
+        try {
+            if (inFlight < maxConcurrent && inFlightOf(client) < maxPerClient && !hasEligibleWaiter()) {
+                grant(client);
+                return true;
+            }
+            ArrayDeque<Waiter> queue = queues.computeIfAbsent(client, key -> new ArrayDeque<>());
+            if (queue.size() >= maxQueuedPerClient) {
+                if (queue.isEmpty()) {
+                    queues.remove(client);
+                }
+                return false;
+            }
+            Waiter waiter = new Waiter();
+            queue.add(waiter);
+            waiting++;
+            long remaining = maxWaitNanos;
+            while (!waiter.granted) {
+                if (remaining <= 0) {
+                    dequeue(client, waiter);
+                    return false;
+                }
+                try {
+                    remaining = waiter.turn.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (waiter.granted) {
+                        return true;
+                    }
+                    dequeue(client, waiter);
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(String client) {
+        lock.lock();
+        try {
+            inFlight--;
+            int count = inFlightOf(client) - 1;
+            if (count > 0) {
+                inFlightByClient.put(client, count);
+            } else {
+                inFlightByClient.remove(client);
+            }
+            while (inFlight < maxConcurrent) {
+                String next = null;
+                for (String candidate : queues.keySet()) {
+                    if (inFlightOf(candidate) < maxPerClient) {
+                        next = candidate;
+                        break;
+                    }
+                }
+                if (next == null) {
+                    return;
+                }
+                ArrayDeque<Waiter> queue = queues.remove(next);
+                Waiter waiter = queue.poll();
+                if (!queue.isEmpty()) {
+                    queues.put(next, queue);
+                }
+                waiting--;
+                grant(next);
+                waiter.granted = true;
+                waiter.turn.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void grant(String client) {
+        inFlight++;
+        inFlightByClient.merge(client, 1, Integer::sum);
+    }
+
+    private int inFlightOf(String client) {
+        return inFlightByClient.getOrDefault(client, 0);
+    }
+
+    private boolean hasEligibleWaiter() {
+        for (String client : queues.keySet()) {
+            if (inFlightOf(client) < maxPerClient) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void dequeue(String client, Waiter waiter) {
+        ArrayDeque<Waiter> queue = queues.get(client);
+        if (queue != null && queue.remove(waiter)) {
+            waiting--;
+            if (queue.isEmpty()) {
+                queues.remove(client);
+            }
+        }
+    }
+}
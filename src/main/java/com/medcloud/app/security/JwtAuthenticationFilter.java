@@ -1,19 +1,27 @@
 package com.medcloud.app.security;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
 
 @Component
 @RequiredArgsConstructor
@@ -21,6 +29,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final MeterRegistry meterRegistry;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -28,31 +38,84 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        userEmail = jwtUtil.extractUsername(jwt);
+        final String jwt = authHeader.substring(7);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = authenticateBearer(jwt, request);
+        sample.stop(Timer.builder("medcloud.auth.jwt.filter")
+                .description("Verificación del bearer token por petición (sin incluir el resto de la cadena)")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Verifica el token y, si es válido, autentica la petición.
+     * @return resultado para la métrica: authenticated, invalid, rejected o skipped.
+     */
+    private String authenticateBearer(String jwt, HttpServletRequest request) {
+        final Claims claims;
+        try {
+            // Una sola verificación de firma y expiración por petición.
+            claims = jwtUtil.parseClaims(jwt);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token inválido o expirado: la petición sigue sin autenticar.
+            return "invalid";
+        }
+
+        final String userEmail = claims.getSubject();
+        if (userEmail == null || SecurityContextHolder.getContext().getAuthentication() != null) {
+            return "skipped";
+        }
+        UsernamePasswordAuthenticationToken authToken = authenticate(claims, userEmail);
+        if (authToken == null) {
+            // Usuario revocado, deshabilitado o inexistente.
+            return "rejected";
+        }
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        return "authenticated";
+    }
+
+    /**
+     * Construye la autenticación solo con los claims verificados, sin consultar la BD.
+     * Los tokens emitidos antes de incluir authorities/uid se validan cargando el usuario.
+     */
+    private UsernamePasswordAuthenticationToken authenticate(Claims claims, String userEmail) {
+        List<String> authorities = jwtUtil.extractAuthorities(claims);
+        UUID userId = jwtUtil.extractUserId(claims);
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
-                        null,
-                        userDetails.getAuthorities()
-                );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+        if (authorities != null && userId != null) {
+            if (tokenRevocationService.isRevoked(userId, jwtUtil.extractTokenVersion(claims))) {
+                return null;
             }
+            return new UsernamePasswordAuthenticationToken(
+                    new JwtPrincipal(userId, userEmail),
+                    null,
+                    authorities.stream().map(SimpleGrantedAuthority::new).toList()
+            );
         }
 
-        filterChain.doFilter(request, response);
+        UserDetails userDetails;
+        try {
+            userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+        if (!userDetails.isEnabled()) {
+            return null;
+        }
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
     }
-}
\ No newline at end of file
+}
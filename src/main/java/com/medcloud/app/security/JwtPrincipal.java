@@ -0,0 +1,16 @@
+package com.medcloud.app.security;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Principal de una petición autenticada por JWT, construido solo con los claims verificados.
+ * id es nulo para tokens emitidos antes de incluir el claim "uid".
+ */
+public record JwtPrincipal(UUID id, String username) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -2,27 +2,47 @@ package com.medcloud.app.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
+    static final String AUTHORITIES_CLAIM = "authorities";
+    static final String USER_ID_CLAIM = "uid";
+    static final String TOKEN_VERSION_CLAIM = "ver";
+
     @Value("${jwt.secret:defaultSecretKeyThatShouldBeAtLeast256BitsLongForHS256Algorithm}")
     private String secret;
 
     @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
     private long jwtExpiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    // La clave y el parser se construyen una sola vez; JwtParser es inmutable y thread-safe.
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String extractUsername(String token) {
@@ -34,24 +54,65 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Verifica la firma y la expiración del token y devuelve sus claims.
+     * Los claims ya verificados se sirven desde la cache hasta que el token expira.
+     * @throws JwtException si el token es inválido, fue alterado o expiró.
+     */
+    public Claims parseClaims(String token) {
+        Claims cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = extractAllClaims(token);
+        verifiedTokenCache.put(token, claims);
+        return claims;
+    }
+
+    /**
+     * Authorities firmadas en el token (claim "authorities"), o null si el token es anterior al claim.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> extractAuthorities(Claims claims) {
+        Object authorities = claims.get(AUTHORITIES_CLAIM);
+        return authorities instanceof List<?> list ? (List<String>) list : null;
+    }
+
+    public UUID extractUserId(Claims claims) {
+        String uid = claims.get(USER_ID_CLAIM, String.class);
+        return uid != null ? UUID.fromString(uid) : null;
+    }
+
+    public int extractTokenVersion(Claims claims) {
+        Integer version = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        return version != null ? version : 0;
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private Boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
+    /**
+     * Genera el token con los datos necesarios para autenticar sin consultar la BD:
+     * authorities, ID del usuario y versión de tokens (para revocación).
+     */
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(AUTHORITIES_CLAIM, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        if (userDetails instanceof EpsUserDetails eps) {
+            claims.put(USER_ID_CLAIM, eps.getId().toString());
+            claims.put(TOKEN_VERSION_CLAIM, eps.getTokenVersion());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -61,12 +122,12 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = parseClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims));
     }
 }
\ No newline at end of file
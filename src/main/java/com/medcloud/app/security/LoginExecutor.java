@@ -0,0 +1,61 @@
+package com.medcloud.app.security;
+
+import com.medcloud.app.domain.exceptions.LoginCapacityExceededException;
+import com.medcloud.app.persistence.datasource.ReadYourWritesContext;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pool dedicado y acotado para la verificación BCrypt del login.
+ * Así una ráfaga de logins no ocupa los hilos de Tomcat que atienden la lectura de documentos.
+ * Cuando todos los hilos están ocupados y la cola está llena, el login se rechaza de inmediato
+ * con LoginCapacityExceededException (429) en lugar de encolarse sin límite.
+ * El pool no se expone como bean Executor para no reemplazar el executor por defecto de Spring.
+ * Usa hilos de plataforma aun con spring.threads.virtual.enabled: BCrypt consume CPU sin bloquear,
+ * así que los hilos virtuales no aportan nada y el pool acotado es lo que da la respuesta 429.
+ */
+@Component
+public class LoginExecutor {
+
+    private final AuthenticationManager authenticationManager;
+    private final ThreadPoolTaskExecutor executor;
+
+    public LoginExecutor(AuthenticationManager authenticationManager,
+                         @Value("${security.login.threads:0}") int threads,
+                         @Value("${security.login.queue-capacity:64}") int queueCapacity) {
+        this.authenticationManager = authenticationManager;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(poolSize);
+        this.executor.setMaxPoolSize(poolSize);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setThreadNamePrefix("login-bcrypt-");
+        // La búsqueda del usuario respeta read-your-writes (p. ej. login justo después del registro).
+        this.executor.setTaskDecorator(ReadYourWritesContext::propagate);
+        this.executor.initialize();
+    }
+
+    /**
+     * Autentica en el pool de login.
+     * @throws LoginCapacityExceededException si el pool y su cola están llenos.
+     */
+    public CompletableFuture<Authentication> authenticate(Authentication request) {
+        try {
+            return executor.submitCompletable(() -> authenticationManager.authenticate(request));
+        } catch (TaskRejectedException e) {
+            throw new LoginCapacityExceededException("Demasiadas solicitudes de inicio de sesión. Intente de nuevo en unos segundos.");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,161 @@
+package com.medcloud.app.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.medcloud.app.domain.enums.RoleName;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita las peticiones por cliente con un token bucket sin bloqueos: por usuario autenticado
+ * (EPS o paciente) con el límite de su rol, y por IP sin autenticación (consulta pública, login).
+ * Corre en la cadena de Spring Security justo después de JwtAuthenticationFilter, así el usuario
+ * ya está resuelto y una EPS que inunda la API recibe 429 antes de ocupar hilos o conexiones de la BD.
+ * Todas las respuestas llevan RateLimit-Limit, RateLimit-Remaining y RateLimit-Reset; el 429 además Retry-After.
+ * Con security.rate-limit.fair-queue.enabled, las peticiones que pasan el límite esperan su turno en
+ * FairRequestScheduler: un cliente con muchas peticiones no alarga la latencia de los demás.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, TokenBucket> buckets;
+    private final FairRequestScheduler scheduler;
+    private final Counter limited;
+    private final Counter queueRejected;
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxClients())
+                .expireAfterAccess(properties.getIdleTimeout())
+                .build();
+        RateLimitProperties.FairQueue fairQueue = properties.getFairQueue();
+        this.scheduler = fairQueue.isEnabled()
+                ? new FairRequestScheduler(fairQueue.getMaxConcurrent(), fairQueue.getMaxConcurrentPerClient(),
+                        fairQueue.getMaxQueuedPerClient(), fairQueue.getMaxWait().toNanos())
+                : null;
+        this.limited = Counter.builder("medcloud.ratelimit.rejected")
+                .description("Peticiones rechazadas por el límite de peticiones o por la cola justa")
+                .tag("reason", "rate")
+                .register(meterRegistry);
+        this.queueRejected = Counter.builder("medcloud.ratelimit.rejected")
+                .description("Peticiones rechazadas por el límite de peticiones o por la cola justa")
+                .tag("reason", "fair-queue")
+                .register(meterRegistry);
+        if (scheduler != null) {
+            Gauge.builder("medcloud.ratelimit.fair-queue.waiting", scheduler, FairRequestScheduler::waiting)
+                    .description("Peticiones esperando turno en la cola justa")
+                    .register(meterRegistry);
+            Gauge.builder("medcloud.ratelimit.fair-queue.in-flight", scheduler, FairRequestScheduler::inFlight)
+                    .description("Peticiones en proceso con turno de la cola justa")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Las preflight de CORS no cuentan contra el límite.
+        return !properties.isEnabled() || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+        String client = authenticated ? "user:" + userKey(authentication) : "ip:" + request.getRemoteAddr();
+        RateLimitProperties.Limit limit = authenticated ? limitFor(authentication) : properties.getAnonymous();
+
+        TokenBucket bucket = buckets.get(client, key -> new TokenBucket(limit.getRequestsPerSecond(), limit.getBurst()));
+        TokenBucket.Decision decision = bucket.tryAcquire(System.nanoTime());
+        response.setHeader("RateLimit-Limit", Integer.toString(bucket.burst()));
+        response.setHeader("RateLimit-Remaining", Integer.toString(decision.remaining()));
+        response.setHeader("RateLimit-Reset", Long.toString(seconds(decision.resetNanos())));
+        if (!decision.allowed()) {
+            limited.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, seconds(decision.retryAfterNanos()))));
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "Demasiadas solicitudes. Intente de nuevo en unos segundos.");
+            return;
+        }
+
+        if (scheduler == null || !properties.getFairQueue().getMethods().contains(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!scheduler.acquire(client)) {
+            queueRejected.increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "El servicio está ocupado. Intente de nuevo en unos segundos.");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            scheduler.release(client);
+        }
+    }
+
+    private static String userKey(Authentication authentication) {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtPrincipal jwt && jwt.id() != null) {
+            return jwt.id().toString();
+        }
+        if (principal instanceof EpsUserDetails eps) {
+            return eps.getId().toString();
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * El límite más alto entre los roles del usuario; sin rol configurado, el de las peticiones anónimas.
+     */
+    private RateLimitProperties.Limit limitFor(Authentication authentication) {
+        RateLimitProperties.Limit best = null;
+        Map<RoleName, RateLimitProperties.Limit> roles = properties.getRoles();
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            for (RoleName role : RoleName.values()) {
+                RateLimitProperties.Limit candidate = roles.get(role);
+                if (candidate != null && name.equals("ROLE_" + role.name())
+                        && (best == null || candidate.getRequestsPerSecond() > best.getRequestsPerSecond())) {
+                    best = candidate;
+                }
+            }
+        }
+        return best != null ? best : properties.getAnonymous();
+    }
+
+    private static long seconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), Map.of("error", status.getReasonPhrase(), "message", message));
+    }
+}
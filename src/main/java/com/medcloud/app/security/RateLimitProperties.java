@@ -0,0 +1,71 @@
+package com.medcloud.app.security;
+
+import com.medcloud.app.domain.enums.RoleName;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Límites de peticiones por cliente (security.rate-limit.*): por usuario autenticado según su rol
+ * y por IP para las peticiones sin autenticar (consulta pública por cédula, login).
+ */
+@Getter
+@Setter
+@ConfigurationProperties("security.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** Límite por rol; un usuario con varios roles usa el más alto. */
+    private Map<RoleName, Limit> roles = new EnumMap<>(Map.of(
+            RoleName.EPS, new Limit(50, 100),
+            RoleName.PACIENTE, new Limit(5, 20)));
+
+    /** Límite por IP de las peticiones sin autenticar. */
+    private Limit anonymous = new Limit(10, 20);
+
+    /** Clientes con límite en memoria; los inactivos por idle-timeout se descartan. */
+    private long maxClients = 100_000;
+
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    private FairQueue fairQueue = new FairQueue();
+
+    /**
+     * Token bucket: requestsPerSecond de reposición y burst peticiones seguidas como máximo.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class Limit {
+        private double requestsPerSecond;
+        private int burst;
+
+        public Limit(double requestsPerSecond, int burst) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * Cola justa: como máximo maxConcurrent peticiones en proceso (y maxConcurrentPerClient por cliente);
+     * las demás esperan hasta maxWait y los lugares que se liberan se reparten por turnos entre clientes.
+     */
+    @Getter
+    @Setter
+    public static class FairQueue {
+        private boolean enabled = false;
+        private int maxConcurrent = 20;
+        private int maxConcurrentPerClient = 5;
+        private int maxQueuedPerClient = 50;
+        private Duration maxWait = Duration.ofSeconds(2);
+        /** Métodos que pasan por la cola; las lecturas largas (descargas, SSE) quedan fuera por defecto. */
+        private Set<String> methods = Set.of("POST", "PUT", "PATCH", "DELETE");
+    }
+}
@@ -0,0 +1,50 @@
+package com.medcloud.app.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin bloqueos, implementado como GCRA (generic cell rate algorithm): todo el estado es
+ * el instante teórico de llegada (TAT) en un AtomicLong, que se avanza con compareAndSet.
+ * Equivale a un bucket de burst fichas que se repone a una ficha cada emissionInterval.
+ */
+final class TokenBucket {
+
+    /**
+     * Resultado de una petición.
+     * @param remaining Fichas que quedan tras esta petición.
+     * @param retryAfterNanos Espera hasta que haya una ficha (solo si no se permitió).
+     * @param resetNanos Espera hasta que el bucket vuelva a estar lleno.
+     */
+    record Decision(boolean allowed, int remaining, long retryAfterNanos, long resetNanos) {
+    }
+
+    private final int burst;
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    TokenBucket(double requestsPerSecond, int burst) {
+        this.burst = Math.max(1, burst);
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / requestsPerSecond));
+        this.toleranceNanos = emissionIntervalNanos * this.burst;
+    }
+
+    int burst() {
+        return burst;
+    }
+
+    Decision tryAcquire(long now) {
+        while (true) {
+            long tat = theoreticalArrival.get();
+            long base = Math.max(tat, now);
+            long next = base + emissionIntervalNanos;
+            long backlog = next - now;
+            if (backlog > toleranceNanos) {
+                return new Decision(false, 0, backlog - toleranceNanos, base - now);
+            }
+            if (theoreticalArrival.compareAndSet(tat, next)) {
+                return new Decision(true, (int) ((toleranceNanos - backlog) / emissionIntervalNanos), 0, backlog);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.medcloud.app.security;
+
+import com.medcloud.app.domain.dto.EpsTokenState;
+import com.medcloud.app.persistence.repositoryimp.UserRepositoryImp;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verificación ligera de revocación para la autenticación JWT sin consulta a la BD por petición.
+ * Mantiene en memoria solo los usuarios con tokens revocados (token_version > 0) o deshabilitados;
+ * un token es válido si su claim "ver" es al menos la versión actual del usuario.
+ * Se recarga periódicamente para propagar revocaciones hechas por otras instancias.
+ * Una recarga que leyó la BD antes de que se confirmara una revocación local no la pierde:
+ * las revocaciones locales se vuelven a aplicar hasta que la recarga las incluya.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    /** Versión mínima aceptada por usuario; Integer.MAX_VALUE para usuarios deshabilitados. */
+    private volatile Map<UUID, Integer> minimumVersions = new ConcurrentHashMap<>();
+
+    // Revocaciones de esta instancia que una recarga aún no mostró; protegidas por lock,
+    // que también ordena el reemplazo del mapa frente a revokeAll.
+    private final Map<UUID, Integer> localRevocations = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final UserRepositoryImp userRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-ms:30000}", initialDelayString = "${jwt.revocation.refresh-ms:30000}")
+    public void refresh() {
+        Map<UUID, Integer> loaded = new ConcurrentHashMap<>();
+        for (EpsTokenState state : userRepository.findTokenStates()) {
+            loaded.put(state.id(), state.enabled() ? state.tokenVersion() : Integer.MAX_VALUE);
+        }
+        lock.lock();
+        try {
+            localRevocations.entrySet().removeIf(revoked -> loaded.getOrDefault(revoked.getKey(), 0) >= revoked.getValue());
+            localRevocations.forEach((userId, version) -> loaded.merge(userId, version, Math::max));
+            minimumVersions = loaded;
+        } finally {
+            lock.unlock();
+        }
+        logger.debug("Token revocation state refreshed: {} entries", loaded.size());
+    }
+
+    /**
+     * @return true si el token del usuario con la versión indicada ya no es válido.
+     */
+    public boolean isRevoked(UUID userId, int tokenVersion) {
+        return tokenVersion < minimumVersions.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Revoca todos los tokens emitidos hasta ahora para el usuario (p. ej. al cambiar sus roles).
+     */
+    public void revokeAll(UUID userId) {
+        userRepository.incrementTokenVersion(userId);
+        lock.lock();
+        try {
+            int version = minimumVersions.merge(userId, 1,
+                    (current, one) -> current == Integer.MAX_VALUE ? current : current + 1);
+            localRevocations.merge(userId, version, Math::max);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
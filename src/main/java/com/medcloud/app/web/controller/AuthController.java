@@ -4,13 +4,13 @@ import com.medcloud.app.domain.dto.LoginRequest;
 import com.medcloud.app.domain.dto.LoginResponse;
 import com.medcloud.app.domain.service.EpsService;
 import com.medcloud.app.persistence.entity.EpsEntity;
+import com.medcloud.app.security.LoginExecutor;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -20,6 +20,8 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -28,44 +30,57 @@ public class AuthController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
-    private final AuthenticationManager authenticationManager;
+    private final LoginExecutor loginExecutor;
     private final EpsService epsService;
     private final com.medcloud.app.security.JwtUtil jwtUtil;
 
+    /**
+     * La verificación de la contraseña corre en el pool de login (LoginExecutor) y
+     * el hilo de Tomcat se libera mientras tanto (procesamiento asíncrono de Spring MVC).
+     */
     @PostMapping("/login")
-    public ResponseEntity<Map<String, String>> login(@Valid @RequestBody LoginRequest loginRequest) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            loginRequest.getIdentifier(),
-                            loginRequest.getPassword()
-                    )
-            );
+    public CompletableFuture<ResponseEntity<Map<String, String>>> login(@Valid @RequestBody LoginRequest loginRequest) {
+        return loginExecutor.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                loginRequest.getIdentifier(),
+                                loginRequest.getPassword()
+                        ))
+                .thenApply(this::loginResponse)
+                .exceptionally(this::loginError);
+    }
+
+    private ResponseEntity<Map<String, String>> loginResponse(Authentication authentication) {
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        String token = jwtUtil.generateToken(userDetails);
 
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            String token = jwtUtil.generateToken(userDetails);
+        String role = userDetails.getAuthorities().stream()
+                .findFirst()
+                .map(GrantedAuthority::getAuthority)
+                .orElse("ROLE_USER");
 
-            String role = userDetails.getAuthorities().stream()
-                    .findFirst()
-                    .map(GrantedAuthority::getAuthority)
-                    .orElse("ROLE_USER");
+        logger.info("User role for email: {} is {}", userDetails.getUsername(), role);
 
-            logger.info("User role for email: {} is {}", userDetails.getUsername(), role);
+        LoginResponse response = new LoginResponse(token, userDetails.getUsername(), role);
 
-            LoginResponse response = new LoginResponse(token, userDetails.getUsername(), role);
+        return ResponseEntity.ok(Map.of("token", response.getToken(), "email", response.getEmail(), "role", response.getRole()));
+    }
 
-            return ResponseEntity.ok(Map.of("token", response.getToken(), "email", response.getEmail(), "role", response.getRole()));
-        } catch (org.springframework.security.authentication.BadCredentialsException e) {
+    private ResponseEntity<Map<String, String>> loginError(Throwable failure) {
+        Throwable e = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (e instanceof org.springframework.security.authentication.BadCredentialsException) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Unauthorized");
             error.put("message", "Invalid credentials: The provided identifier or password is incorrect.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
-        } catch (org.springframework.security.core.userdetails.UsernameNotFoundException e) {
+        }
+        if (e instanceof org.springframework.security.core.userdetails.UsernameNotFoundException) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Unauthorized");
             error.put("message", "User not found: No account exists with the provided identifier.");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
         }
+        // Cualquier otro error lo resuelve GlobalExceptionHandler.
+        throw failure instanceof CompletionException ce ? ce : new CompletionException(e);
     }
 
 }
\ No newline at end of file
@@ -1,15 +1,34 @@
 package com.medcloud.app.web.controller;
 
+import com.medcloud.app.domain.dto.ClinicalDocumentBulkRequest;
+import com.medcloud.app.domain.dto.ClinicalDocumentBulkResult;
 import com.medcloud.app.domain.dto.ClinicalDocumentCreateRequest;
 import com.medcloud.app.domain.dto.ClinicalDocumentDto;
+import com.medcloud.app.domain.dto.ClinicalDocumentPage;
+import com.medcloud.app.domain.dto.ClinicalDocumentSearchResult;
+import com.medcloud.app.domain.dto.ClinicalDocumentSummary;
+import com.medcloud.app.domain.dto.ClinicalDocumentUploadMetadata;
+import com.medcloud.app.domain.dto.DocumentContent;
+import com.medcloud.app.domain.enums.DocumentKind;
 import com.medcloud.app.domain.service.ClinicalDocumentServiceImpl;
+import com.medcloud.app.domain.service.DocumentPreviewService;
+import com.medcloud.app.domain.service.DocumentSearchService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 /**
@@ -23,6 +42,10 @@ import java.util.List;
 public class ClinicalDocumentController {
 
     private final ClinicalDocumentServiceImpl clinicalDocumentService;
+    private final DocumentContentWriter documentContentWriter;
+    private final DocumentSearchService documentSearchService;
+    private final DocumentHistoryJsonWriter documentHistoryJsonWriter;
+    private final DocumentPreviewService documentPreviewService;
 
     /**
      * Sube un nuevo documento clínico.
@@ -35,25 +58,175 @@ public class ClinicalDocumentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(savedDocument);
     }
 
+    /**
+     * Sube un lote de documentos clínicos (Base64) en una sola petición.
+     * Devuelve un resultado por documento: los inválidos no impiden guardar los demás.
+     * Requiere rol EPS.
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('EPS')")
+    public ResponseEntity<ClinicalDocumentBulkResult> uploadDocumentsBulk(@Valid @RequestBody ClinicalDocumentBulkRequest request) {
+        ClinicalDocumentBulkResult result = clinicalDocumentService.uploadDocumentsBulk(request.getDocuments());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Sube un documento clínico como multipart: parte "metadata" (JSON) y parte "file" (binario).
+     * El archivo se copia al almacenamiento por bloques, sin cargarlo completo en memoria.
+     * Requiere rol EPS.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('EPS')")
+    public ResponseEntity<ClinicalDocumentDto> uploadDocumentMultipart(
+            @Valid @RequestPart("metadata") ClinicalDocumentUploadMetadata metadata,
+            @RequestPart("file") MultipartFile file) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            ClinicalDocumentDto savedDocument = clinicalDocumentService.uploadDocumentStream(metadata, content);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedDocument);
+        }
+    }
+
+    /**
+     * Sube un documento clínico con el archivo como cuerpo application/octet-stream
+     * y los metadatos como parámetros de la URL. Requiere rol EPS.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasRole('EPS')")
+    public ResponseEntity<ClinicalDocumentDto> uploadDocumentBinary(
+            @Valid @ModelAttribute ClinicalDocumentUploadMetadata metadata,
+            HttpServletRequest request) throws IOException {
+        try (InputStream content = request.getInputStream()) {
+            ClinicalDocumentDto savedDocument = clinicalDocumentService.uploadDocumentStream(metadata, content);
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedDocument);
+        }
+    }
+
+    /**
+     * Busca documentos por texto (archivo, médico, especialidad y tratamiento del paciente)
+     * con filtros opcionales por tipo, EPS, cédula y rango de fechas de subida.
+     * Ordena por relevancia o por fecha. Requiere rol EPS.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('EPS')")
+    public ResponseEntity<ClinicalDocumentSearchResult> searchDocuments(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) DocumentKind kind,
+            @RequestParam(required = false) String epsId,
+            @RequestParam(required = false) String patientDocumentNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false, defaultValue = "relevance") String sort) {
+        return ResponseEntity.ok(documentSearchService.search(q, kind, epsId, patientDocumentNumber, from, to, limit, sort));
+    }
+
     /**
      * Obtiene un documento clínico por su ID (UUID).
+     * Responde con un ETag fuerte; con If-None-Match coincidente responde 304 sin leer el contenido.
      * Requiere rol EPS o PACIENTE.
      */
     @GetMapping("/{documentId}")
     @PreAuthorize("hasRole('EPS') or hasRole('PACIENTE')")
-    public ResponseEntity<ClinicalDocumentDto> getDocumentById(@PathVariable String documentId) {
+    public ResponseEntity<ClinicalDocumentDto> getDocumentById(@PathVariable String documentId,
+                                                               HttpServletRequest request) {
+        String version = clinicalDocumentService.getDocumentVersion(documentId);
+        String etag = version != null ? ConditionalRequests.strongETag(version) : null;
+        if (ConditionalRequests.ifNoneMatch(request, etag)) {
+            return notModified(etag);
+        }
         ClinicalDocumentDto document = clinicalDocumentService.getDocumentById(documentId);
-        return ResponseEntity.ok(document);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(ConditionalRequests.REVALIDATE);
+        return (etag != null ? response.eTag(etag) : response).body(document);
     }
 
     /**
      * Obtiene todos los documentos clínicos asociados a un paciente (por su cédula).
      * Endpoint público para que pacientes puedan consultar sus documentos sin autenticación.
+     * Con If-None-Match coincidente responde 304 sin leer los documentos.
+     * La respuesta se escribe documento por documento (del más reciente al más antiguo) en un hilo
+     * asíncrono, así el tiempo hasta el primer byte y la memoria no crecen con el historial.
+     */
+    @GetMapping(value = "/patient/{documentNumber}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getDocumentsByPatientDocumentNumber(@PathVariable String documentNumber,
+                                                                                     HttpServletRequest request) {
+        String etag = patientDocumentsETag(documentNumber);
+        if (ConditionalRequests.ifNoneMatch(request, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(ConditionalRequests.REVALIDATE)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> documentHistoryJsonWriter.write(documentNumber, out));
+    }
+
+    /**
+     * Lista los metadatos de los documentos de un paciente (por su cédula), sin el contenido.
+     * Endpoint público, igual que el listado completo; el contenido se obtiene por documento.
+     */
+    @GetMapping("/patient/{documentNumber}/summary")
+    public ResponseEntity<List<ClinicalDocumentSummary>> getDocumentSummariesByPatientDocumentNumber(@PathVariable String documentNumber,
+                                                                                                     HttpServletRequest request) {
+        String etag = patientDocumentsETag(documentNumber);
+        if (ConditionalRequests.ifNoneMatch(request, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(ConditionalRequests.REVALIDATE)
+                .body(clinicalDocumentService.getDocumentSummariesByPatientDocumentNumber(documentNumber));
+    }
+
+    /**
+     * Obtiene una página del historial de un paciente (metadatos, sin contenido).
+     * Paginación por cursor: se envía el nextCursor de la respuesta anterior para pedir la siguiente.
+     * Endpoint público, igual que el listado completo.
+     * El ETag identifica el historial; cursor, limit y sort forman parte de la URL.
+     */
+    @GetMapping("/patient/{documentNumber}/page")
+    public ResponseEntity<ClinicalDocumentPage> getDocumentPageByPatientDocumentNumber(
+            @PathVariable String documentNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false, defaultValue = "desc") String sort,
+            HttpServletRequest request) {
+        String etag = patientDocumentsETag(documentNumber);
+        if (ConditionalRequests.ifNoneMatch(request, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(ConditionalRequests.REVALIDATE)
+                .body(clinicalDocumentService.getDocumentPageByPatientDocumentNumber(documentNumber, cursor, limit, sort));
+    }
+
+    private String patientDocumentsETag(String documentNumber) {
+        return ConditionalRequests.strongETag("p" + clinicalDocumentService.getPatientDocumentsVersion(documentNumber));
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(ConditionalRequests.REVALIDATE).build();
+    }
+
+    /**
+     * Descarga el contenido binario de un documento con su tipo MIME.
+     * Soporta Range / If-Range para descargas parciales y reanudables, e If-None-Match (304).
+     * Requiere rol EPS o PACIENTE.
      */
-    @GetMapping("/patient/{documentNumber}")
-    public ResponseEntity<List<ClinicalDocumentDto>> getDocumentsByPatientDocumentNumber(@PathVariable String documentNumber) {
-        List<ClinicalDocumentDto> documents = clinicalDocumentService.getDocumentsByPatientDocumentNumber(documentNumber);
-        return ResponseEntity.ok(documents);
+    @GetMapping("/{documentId}/content")
+    @PreAuthorize("hasRole('EPS') or hasRole('PACIENTE')")
+    public void getDocumentContent(@PathVariable String documentId,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        DocumentContent content = clinicalDocumentService.getDocumentContent(documentId);
+        documentContentWriter.write(content, request, response);
+    }
+
+    /**
+     * Descarga la vista previa (miniatura JPEG) de un documento IMAGE, SCAN o PDF, pensada para listados.
+     * Se genera en segundo plano después de la subida; mientras no esté lista responde 404.
+     * Requiere rol EPS o PACIENTE.
+     */
+    @GetMapping("/{documentId}/preview")
+    @PreAuthorize("hasRole('EPS') or hasRole('PACIENTE')")
+    public void getDocumentPreview(@PathVariable String documentId,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        documentContentWriter.writePreview(documentPreviewService.getPreview(documentId), request, response);
     }
 
     // Nota: Es recomendable añadir un ControllerAdvice para manejar la ResourceNotFoundException (404).
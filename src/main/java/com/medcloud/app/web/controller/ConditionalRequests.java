@@ -0,0 +1,48 @@
+package com.medcloud.app.web.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Enumeration;
+
+/**
+ * Validadores HTTP de los recursos de documentos. Los documentos no cambian después de subidos,
+ * así que el ETag se obtiene sin leer el contenido y un If-None-Match que coincide se responde
+ * con 304 antes de consultar el cuerpo.
+ */
+final class ConditionalRequests {
+
+    /**
+     * Representaciones JSON: el navegador puede guardarlas, pero revalida siempre (304 si no cambió).
+     * private porque contienen datos clínicos que no deben quedar en caches compartidas.
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalRequests() {
+    }
+
+    static String strongETag(String version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * If-None-Match usa comparación débil (RFC 9110, 13.1.2); "*" coincide con cualquier versión.
+     */
+    static boolean ifNoneMatch(HttpServletRequest request, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        ETag current = ETag.create(etag);
+        Enumeration<String> values = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        while (values != null && values.hasMoreElements()) {
+            for (ETag candidate : ETag.parse(values.nextElement())) {
+                if (candidate.isWildcard() || candidate.compare(current, false)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
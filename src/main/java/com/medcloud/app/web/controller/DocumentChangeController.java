@@ -0,0 +1,116 @@
+package com.medcloud.app.web.controller;
+
+import com.medcloud.app.domain.dto.DocumentChange;
+import com.medcloud.app.domain.service.DocumentChangeFeed;
+import com.medcloud.app.security.EpsUserDetails;
+import com.medcloud.app.security.JwtPrincipal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Feed de documentos nuevos por Server-Sent Events, en lugar de consultar el historial del paciente
+ * cada pocos segundos. Cada evento "document-created" lleva los metadatos del documento (sin contenido)
+ * y su secuencia como id; al reconectarse el cliente envía Last-Event-ID y recibe lo que se perdió.
+ * La conexión queda abierta sin ocupar un hilo del servidor. Requiere rol EPS.
+ */
+@RestController
+@RequestMapping("/clinical-documents")
+@RequiredArgsConstructor
+public class DocumentChangeController {
+
+    private final DocumentChangeFeed documentChangeFeed;
+
+    @Value("${medcloud.changes.session-timeout:30m}")
+    private Duration sessionTimeout;
+
+    @Value("${medcloud.changes.reconnect-delay:3s}")
+    private Duration reconnectDelay;
+
+    /**
+     * Suscribe a los documentos nuevos de la EPS autenticada o, con ?patient={cedula}, a los del paciente.
+     * El cursor es el encabezado Last-Event-ID o, en la primera conexión, el parámetro since.
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('EPS')")
+    public SseEmitter streamChanges(@RequestParam(required = false) String patient,
+                                    @RequestParam(required = false) Long since,
+                                    @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+                                    Authentication authentication) throws IOException {
+        Long cursor = parseLastEventId(lastEventId, since);
+        SseEmitter emitter = new SseEmitter(sessionTimeout.toMillis());
+        // Abre el stream de inmediato e indica cuánto esperar antes de reconectarse.
+        emitter.send(SseEmitter.event().comment("connected").reconnectTime(reconnectDelay.toMillis()));
+        SseSink sink = new SseSink(emitter);
+        DocumentChangeFeed.Subscription subscription = patient != null && !patient.isBlank()
+                ? documentChangeFeed.subscribeToPatient(patient, cursor, sink)
+                : documentChangeFeed.subscribeToEps(currentEpsId(authentication), cursor, sink);
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return emitter;
+    }
+
+    /**
+     * Un Last-Event-ID que no es una secuencia se ignora: la suscripción empieza desde ahora.
+     */
+    private static Long parseLastEventId(String lastEventId, Long since) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return since;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return since;
+        }
+    }
+
+    private static UUID currentEpsId(Authentication authentication) {
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof JwtPrincipal jwt && jwt.id() != null) {
+            return jwt.id();
+        }
+        if (principal instanceof EpsUserDetails eps) {
+            return eps.getId();
+        }
+        throw new AccessDeniedException("El token no identifica a la EPS.");
+    }
+
+    /**
+     * Escribe los cambios del feed como eventos SSE en la conexión.
+     */
+    private record SseSink(SseEmitter emitter) implements DocumentChangeFeed.Sink {
+
+        @Override
+        public void send(DocumentChange change) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(change.sequence()))
+                    .name("document-created")
+                    .data(change, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            // Comentario SSE: mantiene viva la conexión en proxies y detecta clientes desconectados.
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+        }
+
+        @Override
+        public void close() {
+            try {
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // La conexión ya estaba cerrada.
+            }
+        }
+    }
+}
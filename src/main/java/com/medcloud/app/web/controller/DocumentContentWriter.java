@@ -0,0 +1,200 @@
+package com.medcloud.app.web.controller;
+
+import com.medcloud.app.domain.dto.DocumentContent;
+import com.medcloud.app.domain.service.DocumentPayloadMetrics;
+import com.medcloud.app.domain.service.MimeSniffer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Escribe el contenido binario de un documento en la respuesta HTTP.
+ * Soporta Range / 206 Partial Content con un único rango e If-Range (ETag fuerte o Last-Modified),
+ * e If-None-Match: si el ETag (SHA-256 del contenido) coincide responde 304 sin enviar el cuerpo.
+ * Cuando el contenido es un archivo local usa sendfile de Tomcat o FileChannel.transferTo,
+ * así los bytes pasan del disco al socket sin copiarse al heap.
+ * Solo los formatos verificados al subir (PDF, imágenes, DICOM) se sirven inline con su tipo; el resto
+ * se descarga como application/octet-stream. Toda respuesta lleva Content-Security-Policy: sandbox.
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentContentWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final DocumentPayloadMetrics payloadMetrics;
+
+    // El contenido de un documento nunca cambia: el navegador puede guardarlo sin revalidar.
+    @Value("${medcloud.http.content-max-age:1d}")
+    private Duration contentMaxAge;
+
+    // Las vistas previas tampoco cambian (ETag = SHA-256 del JPEG) y se piden en cada listado.
+    @Value("${medcloud.http.preview-max-age:30d}")
+    private Duration previewMaxAge;
+
+    public void write(DocumentContent content, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(content, contentMaxAge, request, response);
+    }
+
+    /**
+     * Escribe la vista previa de un documento, con un tiempo de cache más largo que el contenido.
+     */
+    public void writePreview(DocumentContent preview, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(preview, previewMaxAge, request, response);
+    }
+
+    private void write(DocumentContent content, Duration maxAge, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        try {
+            long length = content.ref().sizeBytes();
+            String etag = content.ref().contentSha256() != null ? ConditionalRequests.strongETag(content.ref().contentSha256()) : null;
+            long lastModified = content.ref().uploadedAt() != null
+                    ? content.ref().uploadedAt().toInstant().toEpochMilli() / 1000 * 1000 : -1;
+
+            boolean inline = MimeSniffer.isInlineSafe(content.ref().mimeType());
+            response.setContentType(inline
+                    ? mediaTypeOf(content.ref().mimeType()).toString()
+                    : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    (inline ? ContentDisposition.inline() : ContentDisposition.attachment())
+                            .filename(content.ref().filename(), StandardCharsets.UTF_8).build().toString());
+            // Aunque el navegador lo abra en su propia ventana, el documento no ejecuta scripts en este origen.
+            response.setHeader("Content-Security-Policy", "sandbox");
+            if (etag != null) {
+                response.setHeader(HttpHeaders.ETAG, etag);
+            }
+            if (lastModified >= 0) {
+                response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+            }
+            if (etag != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL,
+                        CacheControl.maxAge(maxAge).cachePrivate().immutable().getHeaderValue());
+                if (ConditionalRequests.ifNoneMatch(request, etag)) {
+                    response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                    return;
+                }
+            }
+
+            long start = 0;
+            long count = length;
+            String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+            if (rangeHeader != null && ifRangeMatches(request, etag, lastModified)) {
+                List<HttpRange> ranges;
+                try {
+                    ranges = HttpRange.parseRanges(rangeHeader);
+                } catch (IllegalArgumentException e) {
+                    ranges = List.of();
+                }
+                // Con varios rangos se responde el contenido completo, como permite el RFC 9110.
+                if (ranges.size() == 1) {
+                    HttpRange range = ranges.get(0);
+                    try {
+                        start = range.getRangeStart(length);
+                        count = range.getRangeEnd(length) - start + 1;
+                    } catch (IllegalArgumentException e) {
+                        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                        response.setContentLengthLong(0);
+                        return;
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE,
+                            "bytes " + start + "-" + (start + count - 1) + "/" + length);
+                }
+            }
+
+            response.setContentLengthLong(count);
+            if ("HEAD".equals(request.getMethod()) || count == 0) {
+                return;
+            }
+            payloadMetrics.recordDownload(count, count < length);
+
+            if (content.file() != null) {
+                writeFile(content, start, count, request, response);
+            } else {
+                StreamUtils.copyRange(content.stream(), response.getOutputStream(), start, start + count - 1);
+            }
+        } finally {
+            if (content.stream() != null) {
+                content.stream().close();
+            }
+        }
+    }
+
+    private void writeFile(DocumentContent content, long start, long count,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat envía el archivo con sendfile al terminar la petición.
+            request.setAttribute(SENDFILE_FILENAME, content.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(content.file(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * If-Range: el rango solo se aplica si el validador coincide exactamente;
+     * si no, se envía el contenido completo. Un ETag débil nunca coincide.
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag != null && etag.equals(ifRange);
+        }
+        try {
+            return lastModified >= 0 && request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    static MediaType mediaTypeOf(String mimeType) {
+        if (mimeType == null || mimeType.isBlank()) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(mimeType);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.medcloud.app.web.controller;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medcloud.app.domain.dto.ClinicalDocumentSummary;
+import com.medcloud.app.domain.dto.DocumentContent;
+import com.medcloud.app.domain.service.ClinicalDocumentServiceImpl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.UUID;
+
+/**
+ * Escribe el historial completo de un paciente como un arreglo JSON, documento por documento.
+ * Cada elemento tiene los mismos campos que ClinicalDocumentDto, pero el Base64 se codifica
+ * mientras se lee el contenido: ni la lista ni el Base64 de un documento quedan completos en el heap,
+ * y el primer documento llega al cliente antes de leer el segundo.
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentHistoryJsonWriter {
+
+    private final ClinicalDocumentServiceImpl clinicalDocumentService;
+    private final ObjectMapper objectMapper;
+
+    public void write(String patientDocumentNumber, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.createGenerator(out)) {
+            json.writeStartArray();
+            clinicalDocumentService.forEachDocumentByPatientDocumentNumber(patientDocumentNumber, (summary, content) -> {
+                writeDocument(json, summary, content);
+                // Envía el documento (un chunk, comprimido si aplica) antes de abrir el siguiente.
+                json.flush();
+            });
+            json.writeEndArray();
+        }
+    }
+
+    private void writeDocument(JsonGenerator json, ClinicalDocumentSummary summary, DocumentContent content) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("id", text(summary.id()));
+        json.writeStringField("patientId", text(summary.patientId()));
+        json.writeStringField("uploadedByEpsId", text(summary.uploadedByEpsId()));
+        json.writeStringField("epsName", summary.epsName());
+        json.writeStringField("doctorName", summary.doctorName());
+        json.writeStringField("doctorDocumentNumber", summary.doctorDocumentNumber());
+        json.writeStringField("doctorSpecialty", summary.doctorSpecialty());
+        json.writeBooleanField("patientDiagnosisInProgress", summary.patientDiagnosisInProgress());
+        json.writeObjectField("kind", summary.kind());
+        json.writeStringField("filename", summary.filename());
+        json.writeFieldName("fileContentBase64");
+        try (InputStream in = content.file() != null ? Files.newInputStream(content.file()) : content.stream()) {
+            // Longitud -1: Jackson codifica por bloques hasta el final del flujo.
+            json.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, in, -1);
+        }
+        json.writeStringField("mimeType", summary.mimeType());
+        json.writeNumberField("sizeBytes", summary.sizeBytes());
+        json.writeObjectField("uploadedAt", summary.uploadedAt());
+        json.writeEndObject();
+    }
+
+    private static String text(UUID id) {
+        return id != null ? id.toString() : null;
+    }
+}
@@ -1,15 +1,24 @@
 package com.medcloud.app.web.controller;
 
+import com.medcloud.app.domain.exceptions.ChangeFeedFullException;
+import com.medcloud.app.domain.exceptions.DocumentStorageException;
+import com.medcloud.app.domain.exceptions.InvalidDocumentContentException;
+import com.medcloud.app.domain.exceptions.InvalidPaginationException;
 import com.medcloud.app.domain.exceptions.InvalidUuidException;
+import com.medcloud.app.domain.exceptions.LoginCapacityExceededException;
 import com.medcloud.app.domain.exceptions.PatientAlreadyInProgressException;
 import com.medcloud.app.domain.exceptions.ResourceNotFoundException;
+import com.medcloud.app.domain.exceptions.UploadSpoolFullException;
 import com.medcloud.app.domain.exceptions.UserAlreadyExistException;
 import com.medcloud.app.domain.exceptions.WeakPasswordException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -61,6 +70,88 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    @ExceptionHandler(InvalidDocumentContentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidDocumentContent(InvalidDocumentContentException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidPaginationException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidPagination(InvalidPaginationException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Bad Request");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<Map<String, String>> handleMaxUploadSize(MaxUploadSizeExceededException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Payload Too Large");
+        error.put("message", "El archivo excede el tamaño máximo permitido.");
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(error);
+    }
+
+    @ExceptionHandler(DocumentStorageException.class)
+    public ResponseEntity<Map<String, String>> handleDocumentStorage(DocumentStorageException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Internal Server Error");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+
+    @ExceptionHandler(LoginCapacityExceededException.class)
+    public ResponseEntity<Map<String, String>> handleLoginCapacityExceeded(LoginCapacityExceededException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too Many Requests");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    /**
+     * El spool de subidas asíncronas tiene el máximo de subidas pendientes de guardar en la BD.
+     */
+    @ExceptionHandler(UploadSpoolFullException.class)
+    public ResponseEntity<Map<String, String>> handleUploadSpoolFull(UploadSpoolFullException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service Unavailable");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(error);
+    }
+
+    /**
+     * El feed de cambios tiene el máximo de suscriptores conectados.
+     */
+    @ExceptionHandler(ChangeFeedFullException.class)
+    public ResponseEntity<Map<String, String>> handleChangeFeedFull(ChangeFeedFullException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service Unavailable");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(error);
+    }
+
+    /**
+     * Sin conexión libre en el pool dentro de spring.datasource.hikari.connection-timeout.
+     * La concurrencia contra la BD la limita el pool, no el número de hilos (virtuales o no).
+     */
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<Map<String, String>> handleCannotCreateTransaction(CannotCreateTransactionException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service Unavailable");
+        error.put("message", "El servicio está ocupado. Intente de nuevo en unos segundos.");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
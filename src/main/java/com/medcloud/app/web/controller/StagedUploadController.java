@@ -0,0 +1,95 @@
+package com.medcloud.app.web.controller;
+
+import com.medcloud.app.domain.dto.ClinicalDocumentCreateRequest;
+import com.medcloud.app.domain.dto.ClinicalDocumentUploadMetadata;
+import com.medcloud.app.domain.dto.StagedUploadStatus;
+import com.medcloud.app.domain.enums.StagedUploadState;
+import com.medcloud.app.domain.service.AsyncUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Subidas asíncronas de documentos clínicos (accept-then-persist).
+ * Cada subida se valida, se guarda en el almacenamiento y en el spool local, y se responde
+ * 202 Accepted con la URL de estado (Location); el documento se guarda en la BD en segundo plano.
+ * Solo existe con medcloud.upload.async.enabled=true. Requiere rol EPS.
+ */
+@RestController
+@RequestMapping("/clinical-documents/uploads")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "medcloud.upload.async", name = "enabled", havingValue = "true")
+public class StagedUploadController {
+
+    private final AsyncUploadService asyncUploadService;
+
+    /**
+     * Acepta un documento con el contenido en Base64 (mismo cuerpo que POST /clinical-documents).
+     */
+    @PostMapping
+    @PreAuthorize("hasRole('EPS')")
+    public ResponseEntity<StagedUploadStatus> acceptDocument(@Valid @RequestBody ClinicalDocumentCreateRequest request) {
+        return accepted(asyncUploadService.accept(request));
+    }
+
+    /**
+     * Acepta un documento como multipart: parte "metadata" (JSON) y parte "file" (binario).
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('EPS')")
+    public ResponseEntity<StagedUploadStatus> acceptDocumentMultipart(
+            @Valid @RequestPart("metadata") ClinicalDocumentUploadMetadata metadata,
+            @RequestPart("file") MultipartFile file) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return accepted(asyncUploadService.accept(metadata, content));
+        }
+    }
+
+    /**
+     * Acepta un documento con el archivo como cuerpo application/octet-stream
+     * y los metadatos como parámetros de la URL.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasRole('EPS')")
+    public ResponseEntity<StagedUploadStatus> acceptDocumentBinary(
+            @Valid @ModelAttribute ClinicalDocumentUploadMetadata metadata,
+            HttpServletRequest request) throws IOException {
+        try (InputStream content = request.getInputStream()) {
+            return accepted(asyncUploadService.accept(metadata, content));
+        }
+    }
+
+    /**
+     * Estado de una subida: ACCEPTED (pendiente, con Retry-After), PERSISTED (con documentId) o FAILED (con error).
+     */
+    @GetMapping("/{uploadId}")
+    @PreAuthorize("hasRole('EPS')")
+    public ResponseEntity<StagedUploadStatus> getUploadStatus(@PathVariable String uploadId) {
+        StagedUploadStatus status = asyncUploadService.getStatus(uploadId);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (status.state() == StagedUploadState.ACCEPTED) {
+            response.header(HttpHeaders.RETRY_AFTER, "1");
+        }
+        return response.body(status);
+    }
+
+    private static ResponseEntity<StagedUploadStatus> accepted(StagedUploadStatus status) {
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/clinical-documents/uploads/{uploadId}")
+                .buildAndExpand(status.uploadId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+}
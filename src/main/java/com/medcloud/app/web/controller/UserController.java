@@ -24,9 +24,7 @@ public class UserController {
 
     @GetMapping("/")
     public ResponseEntity<List<UserResponse>> getAll(){
-        List<UserResponse> list = this.userService.getAll();
-        System.out.println("in controller from service: " + list.toString());
-        return ResponseEntity.ok(userService.getAll());
+        return ResponseEntity.ok(this.userService.getAll());
     }
 
     @PostMapping("/")
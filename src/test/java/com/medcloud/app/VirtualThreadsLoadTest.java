@@ -0,0 +1,207 @@
+package com.medcloud.app;
+
+import com.medcloud.app.persistence.entity.EpsEntity;
+import com.medcloud.app.persistence.jpa.JpaUser;
+import com.medcloud.app.security.EpsUserDetails;
+import com.medcloud.app.security.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga: 1000 clientes lentos suben documentos a la vez (el cuerpo llega por partes
+ * durante ~2 s) contra la misma aplicación con hilos de plataforma y con hilos virtuales.
+ * Con hilos de plataforma cada subida lenta ocupa uno de los 200 hilos de Tomcat; con hilos
+ * virtuales el límite lo pone el pool de conexiones. Compara throughput y latencia (p50/p99/máx)
+ * y deja el reporte en build/reports/load/virtual-threads.txt.
+ * Se ejecuta con ./gradlew loadTest (etiqueta "load", excluida de ./gradlew test).
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class VirtualThreadsLoadTest {
+
+    private static final int CLIENTS = 1000;
+    private static final int REQUESTS_PER_CLIENT = 2;
+    private static final int BODY_BYTES = 16 * 1024;
+    private static final int BODY_CHUNKS = 8;
+    private static final long CHUNK_DELAY_MS = 250;
+    private static final String CONTEXT_PATH = "/MedCloud/api/v1";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "max_connections=200");
+
+    private record RunResult(String mode, int requests, int failures, long wallMillis, long[] latenciesMillis) {
+        double throughput() {
+            return requests * 1000.0 / wallMillis;
+        }
+
+        long percentile(double p) {
+            if (latenciesMillis.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latenciesMillis.length) - 1;
+            return latenciesMillis[Math.max(0, Math.min(index, latenciesMillis.length - 1))];
+        }
+
+        String summary() {
+            return String.format("%-8s requests=%d failures=%d wall=%dms throughput=%.1f req/s p50=%dms p99=%dms max=%dms",
+                    mode, requests, failures, wallMillis, throughput(), percentile(0.50), percentile(0.99),
+                    latenciesMillis.length == 0 ? 0 : latenciesMillis[latenciesMillis.length - 1]);
+        }
+    }
+
+    @Test
+    void virtualThreadsServeSlowClientsWithHigherThroughput() throws Exception {
+        RunResult platform = run(false);
+        RunResult virtual = run(true);
+
+        String report = platform.summary() + System.lineSeparator() + virtual.summary() + System.lineSeparator();
+        Path reportFile = Path.of("build", "reports", "load", "virtual-threads.txt");
+        Files.createDirectories(reportFile.getParent());
+        Files.writeString(reportFile, report);
+        System.out.print(report);
+
+        assertThat(platform.failures()).isZero();
+        assertThat(virtual.failures()).isZero();
+        assertThat(virtual.throughput()).isGreaterThan(platform.throughput());
+    }
+
+    private RunResult run(boolean virtualThreads) throws Exception {
+        Path dataDir = Files.createTempDirectory("medcloud-load");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MedCloudApplication.class)
+                .properties(Map.ofEntries(
+                        Map.entry("spring.datasource.url", postgres.getJdbcUrl() + "&reWriteBatchedInserts=true"),
+                        Map.entry("spring.datasource.username", postgres.getUsername()),
+                        Map.entry("spring.datasource.password", postgres.getPassword()),
+                        Map.entry("spring.jpa.hibernate.ddl-auto", "create"),
+                        Map.entry("spring.threads.virtual.enabled", String.valueOf(virtualThreads)),
+                        Map.entry("server.port", "0"),
+                        Map.entry("management.server.port", "-1"),
+                        Map.entry("medcloud.storage.path", dataDir.resolve("documents").toString()),
+                        Map.entry("medcloud.search.path", dataDir.resolve("search-index").toString()),
+                        Map.entry("logging.level.root", "WARN")))
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            EpsEntity eps = new EpsEntity();
+            eps.setUsername("eps-load");
+            eps.setEmail("eps-load@medcloud.test");
+            eps.setPasswordHash("not-used");
+            eps.setEpsName("EPS Load");
+            eps.setNit("900000777");
+            eps = context.getBean(JpaUser.class).save(eps);
+            String token = context.getBean(JwtUtil.class).generateToken(new EpsUserDetails(eps.getId(), 0,
+                    eps.getEmail(), "not-used", true, List.of(new SimpleGrantedAuthority("ROLE_EPS"))));
+
+            return runClients(virtualThreads ? "virtual" : "platform", port, token, eps.getId());
+        }
+    }
+
+    private RunResult runClients(String mode, int port, String token, UUID epsId) throws Exception {
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<long[]>> clients = new ArrayList<>(CLIENTS);
+        long start = System.nanoTime();
+        // Los clientes usan hilos virtuales para no limitar la carga del lado de la prueba.
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                String cedula = "30" + c;
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[REQUESTS_PER_CLIENT];
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        long requestStart = System.nanoTime();
+                        int status = slowUpload(port, token, epsId, cedula);
+                        latencies[r] = (System.nanoTime() - requestStart) / 1_000_000;
+                        if (status != 201) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+            List<Long> all = new ArrayList<>(CLIENTS * REQUESTS_PER_CLIENT);
+            for (Future<long[]> client : clients) {
+                for (long latency : client.get()) {
+                    all.add(latency);
+                }
+            }
+            long wallMillis = (System.nanoTime() - start) / 1_000_000;
+            long[] sorted = all.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            return new RunResult(mode, sorted.length, failures.get(), wallMillis, sorted);
+        }
+    }
+
+    /**
+     * Sube un PDF por /clinical-documents/stream enviando el cuerpo en partes con pausas,
+     * como un cliente en una red lenta. Devuelve el código HTTP, o -1 si falla la conexión.
+     */
+    private int slowUpload(int port, String token, UUID epsId, String cedula) {
+        String query = Map.of(
+                        "patientDocumentNumber", cedula,
+                        "patientFullName", "Paciente Carga",
+                        "patientBirthDate", "1980-01-01",
+                        "patientDiagnosisInProgress", "false",
+                        "uploadedByEpsId", epsId.toString(),
+                        "doctorName", "Dra. Carga",
+                        "doctorDocumentNumber", "79000000",
+                        "kind", "PDF",
+                        "filename", "carga.pdf",
+                        "mimeType", "application/pdf")
+                .entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        byte[] body = new byte[BODY_BYTES];
+        byte[] header = ("%PDF-1.4\n%" + UUID.randomUUID() + "\n").getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, body, 0, header.length);
+
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(120_000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("POST " + CONTEXT_PATH + "/clinical-documents/stream?" + query + " HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Authorization: Bearer " + token + "\r\n"
+                    + "Content-Type: application/octet-stream\r\n"
+                    + "Content-Length: " + BODY_BYTES + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            int chunk = BODY_BYTES / BODY_CHUNKS;
+            for (int offset = 0; offset < BODY_BYTES; offset += chunk) {
+                out.write(body, offset, Math.min(chunk, BODY_BYTES - offset));
+                out.flush();
+                Thread.sleep(CHUNK_DELAY_MS);
+            }
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            String statusLine = in.readLine();
+            return statusLine != null ? Integer.parseInt(statusLine.split(" ")[1]) : -1;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            return -1;
+        }
+    }
+}
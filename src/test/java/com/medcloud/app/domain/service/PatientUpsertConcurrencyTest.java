@@ -0,0 +1,147 @@
+package com.medcloud.app.domain.service;
+
+import com.medcloud.app.domain.dto.ClinicalDocumentCreateRequest;
+import com.medcloud.app.domain.enums.DocumentKind;
+import com.medcloud.app.domain.exceptions.PatientAlreadyInProgressException;
+import com.medcloud.app.persistence.entity.EpsEntity;
+import com.medcloud.app.persistence.jpa.JpaPatient;
+import com.medcloud.app.persistence.jpa.JpaUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Varias subidas concurrentes para la misma cédula contra PostgreSQL real:
+ * el upsert de pacientes no debe chocar con el índice único ni duplicar pacientes.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "medcloud.storage.path=${java.io.tmpdir}/medcloud-upsert-test")
+class PatientUpsertConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int UPLOADS_PER_THREAD = 5;
+    private static final String PDF_BASE64 =
+            Base64.getEncoder().encodeToString("%PDF-1.4\n%medcloud\n".getBytes(StandardCharsets.US_ASCII));
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private ClinicalDocumentServiceImpl documentService;
+
+    @Autowired
+    private JpaUser jpaUser;
+
+    @Autowired
+    private JpaPatient jpaPatient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String epsId;
+
+    @BeforeEach
+    void createEps() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        EpsEntity eps = new EpsEntity();
+        eps.setUsername("eps-" + suffix);
+        eps.setEmail("eps-" + suffix + "@medcloud.test");
+        eps.setPasswordHash("not-used");
+        eps.setEpsName("EPS " + suffix);
+        eps.setNit("900" + suffix);
+        epsId = jpaUser.save(eps).getId().toString();
+    }
+
+    @Test
+    void concurrentUploadsForSameNewPatientCreateOnePatient() throws Exception {
+        String cedula = "10" + System.nanoTime();
+
+        List<Throwable> failures = runConcurrently(() -> documentService.uploadDocument(request(cedula, false)));
+
+        assertThat(failures).isEmpty();
+        assertThat(jpaPatient.findAllByDocumentNumberIn(List.of(cedula))).hasSize(1);
+        UUID patientId = jpaPatient.findByDocumentNumber(cedula).orElseThrow().getId();
+        Integer documents = jdbcTemplate.queryForObject(
+                "select count(*) from clinical_documents where patient_id = ?", Integer.class, patientId);
+        assertThat(documents).isEqualTo(THREADS * UPLOADS_PER_THREAD);
+    }
+
+    @Test
+    void diagnosisInProgressAdmitsExactlyOneConcurrentUpload() throws Exception {
+        String cedula = "20" + System.nanoTime();
+
+        List<Throwable> failures = runConcurrently(() -> documentService.uploadDocument(request(cedula, true)));
+
+        assertThat(failures).hasSize(THREADS * UPLOADS_PER_THREAD - 1)
+                .allMatch(PatientAlreadyInProgressException.class::isInstance);
+        assertThat(jpaPatient.findAllByDocumentNumberIn(List.of(cedula))).hasSize(1);
+        assertThat(jpaPatient.findByDocumentNumber(cedula).orElseThrow().isDiagnosisInProgress()).isTrue();
+    }
+
+    /**
+     * Lanza THREADS hilos a la vez, cada uno con UPLOADS_PER_THREAD subidas, y devuelve los errores.
+     */
+    private List<Throwable> runConcurrently(Callable<?> upload) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS * UPLOADS_PER_THREAD; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return upload.call();
+            }));
+        }
+        start.countDown();
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause());
+            }
+        }
+        pool.shutdown();
+        return failures;
+    }
+
+    private ClinicalDocumentCreateRequest request(String cedula, boolean diagnosisInProgress) {
+        return new ClinicalDocumentCreateRequest(
+                cedula,
+                "Paciente Concurrente",
+                LocalDate.of(1990, 1, 1),
+                "Control",
+                diagnosisInProgress,
+                epsId,
+                "Dra. Prueba",
+                "555",
+                "General",
+                DocumentKind.PDF,
+                "informe.pdf",
+                PDF_BASE64,
+                "application/pdf",
+                PDF_BASE64.length());
+    }
+}
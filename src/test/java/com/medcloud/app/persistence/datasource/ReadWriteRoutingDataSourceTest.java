@@ -0,0 +1,150 @@
+package com.medcloud.app.persistence.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Enrutamiento lectura/escritura con dos bases H2 embebidas: cada una responde su propio nombre,
+ * así se ve a cuál fue cada consulta.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReadWriteRoutingDataSource routingDataSource;
+    private DataSourceTransactionManager transactionManager;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createDatabases() {
+        primary = database("primary");
+        replica = database("replica");
+        new JdbcTemplate(replica).execute("create table replica_lag (ms bigint)");
+        new JdbcTemplate(replica).update("insert into replica_lag values (0)");
+
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replica);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void shutdown() {
+        ReadYourWritesContext.clear();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + "-" + UUID.randomUUID())
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("create table db_node (name varchar(20))");
+        jdbc.update("insert into db_node values (?)", name);
+        return database;
+    }
+
+    private String nodeName(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("select name from db_node", String.class));
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        assertThat(nodeName(true)).isEqualTo("replica");
+        assertThat(nodeName(false)).isEqualTo("primary");
+        // Sin transacción no hay marca de solo lectura: primario.
+        assertThat(jdbcTemplate.queryForObject("select name from db_node", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void laggingOrFailingReplicaFallsBackToPrimary() {
+        ReplicaDataSourceProperties properties = new ReplicaDataSourceProperties();
+        properties.setLagQuery("select ms from replica_lag");
+        properties.setMaxLagMs(1000);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, routingDataSource, properties, new SimpleMeterRegistry());
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+
+        replicaJdbc.update("update replica_lag set ms = 5000");
+        monitor.check();
+        assertThat(monitor.lastLagMs()).isEqualTo(5000);
+        assertThat(nodeName(true)).isEqualTo("primary");
+
+        replicaJdbc.update("update replica_lag set ms = 200");
+        monitor.check();
+        assertThat(nodeName(true)).isEqualTo("replica");
+
+        replicaJdbc.execute("drop table replica_lag");
+        monitor.check();
+        assertThat(monitor.lastLagMs()).isEqualTo(-1);
+        assertThat(nodeName(true)).isEqualTo("primary");
+    }
+
+    @Test
+    void recentWriterReadsFromPrimaryUntilWindowExpires() throws InterruptedException {
+        ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMillis(200), 100);
+        tracker.recordWrite("user:eps@medcloud.test");
+
+        ReadYourWritesContext.pinToPrimary(tracker.wroteRecently("user:eps@medcloud.test"));
+        assertThat(nodeName(true)).isEqualTo("primary");
+
+        ReadYourWritesContext.pinToPrimary(tracker.wroteRecently("user:otra@medcloud.test"));
+        assertThat(nodeName(true)).isEqualTo("replica");
+
+        Thread.sleep(300);
+        ReadYourWritesContext.pinToPrimary(tracker.wroteRecently("user:eps@medcloud.test"));
+        assertThat(nodeName(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void filterPinsReadsAfterSuccessfulWriteFromSameClient() throws Exception {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(new ReadYourWritesTracker(Duration.ofSeconds(5), 100));
+        AtomicBoolean pinned = new AtomicBoolean();
+        MockFilterChain capture = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response) {
+                pinned.set(ReadYourWritesContext.isPinnedToPrimary());
+            }
+        };
+
+        filter.doFilter(request("GET", "10.0.0.1"), new MockHttpServletResponse(), capture);
+        assertThat(pinned).isFalse();
+
+        filter.doFilter(request("POST", "10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+        filter.doFilter(request("GET", "10.0.0.1"), new MockHttpServletResponse(), capture);
+        assertThat(pinned).isTrue();
+        assertThat(ReadYourWritesContext.isPinnedToPrimary()).isFalse();
+
+        filter.doFilter(request("GET", "10.0.0.2"), new MockHttpServletResponse(), capture);
+        assertThat(pinned).isFalse();
+    }
+
+    private static MockHttpServletRequest request(String method, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/clinical-documents");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+}
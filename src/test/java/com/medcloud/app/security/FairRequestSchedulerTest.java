@@ -0,0 +1,119 @@
+package com.medcloud.app.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Turnos entre clientes, tope por cliente, cola llena, vencimiento de la espera y entrega del lugar
+ * liberado al siguiente cliente que puede recibirlo.
+ */
+class FairRequestSchedulerTest {
+
+    private static final long LONG_WAIT = TimeUnit.SECONDS.toNanos(10);
+
+    private final BlockingQueue<String> granted = new LinkedBlockingQueue<>();
+
+    @Test
+    void grantsReleasedSlotsRoundRobinAcrossClients() throws Exception {
+        FairRequestScheduler scheduler = new FairRequestScheduler(1, 10, 10, LONG_WAIT);
+        assertThat(scheduler.acquire("a")).isTrue();
+
+        enqueue(scheduler, "a", "a1");
+        enqueue(scheduler, "a", "a2");
+        enqueue(scheduler, "b", "b1");
+
+        scheduler.release("a");
+        assertThat(nextGranted()).isEqualTo("a1");
+        scheduler.release("a");
+        assertThat(nextGranted()).isEqualTo("b1");
+        scheduler.release("b");
+        assertThat(nextGranted()).isEqualTo("a2");
+        assertThat(scheduler.waiting()).isZero();
+    }
+
+    @Test
+    void capsSlotsPerClient() {
+        FairRequestScheduler scheduler = new FairRequestScheduler(4, 2, 10, 0);
+
+        assertThat(scheduler.acquire("a")).isTrue();
+        assertThat(scheduler.acquire("a")).isTrue();
+        assertThat(scheduler.acquire("a")).isFalse();
+        assertThat(scheduler.acquire("b")).isTrue();
+        assertThat(scheduler.inFlight()).isEqualTo(3);
+        assertThat(scheduler.waiting()).isZero();
+    }
+
+    @Test
+    void rejectsWhenClientQueueIsFull() throws Exception {
+        FairRequestScheduler scheduler = new FairRequestScheduler(1, 1, 1, LONG_WAIT);
+        assertThat(scheduler.acquire("a")).isTrue();
+        Thread queued = enqueue(scheduler, "a", "a1");
+
+        assertThat(scheduler.acquire("a")).isFalse();
+        assertThat(scheduler.waiting()).isEqualTo(1);
+
+        scheduler.release("a");
+        assertThat(nextGranted()).isEqualTo("a1");
+        queued.join();
+    }
+
+    @Test
+    void timesOutAndLeavesTheQueue() {
+        FairRequestScheduler scheduler = new FairRequestScheduler(1, 1, 10, TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(scheduler.acquire("a")).isTrue();
+
+        long start = System.nanoTime();
+        assertThat(scheduler.acquire("b")).isFalse();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(scheduler.waiting()).isZero();
+
+        scheduler.release("a");
+        assertThat(scheduler.inFlight()).isZero();
+        assertThat(scheduler.acquire("b")).isTrue();
+    }
+
+    @Test
+    void releaseHandsSlotToNextEligibleClient() throws Exception {
+        FairRequestScheduler scheduler = new FairRequestScheduler(2, 1, 10, LONG_WAIT);
+        assertThat(scheduler.acquire("a")).isTrue();
+        assertThat(scheduler.acquire("b")).isTrue();
+        enqueue(scheduler, "a", "a1");
+        enqueue(scheduler, "c", "c1");
+
+        // "a" va primero en turno pero ya tiene su único lugar: el que libera "b" es para "c".
+        scheduler.release("b");
+        assertThat(nextGranted()).isEqualTo("c1");
+        assertThat(scheduler.waiting()).isEqualTo(1);
+
+        scheduler.release("a");
+        assertThat(nextGranted()).isEqualTo("a1");
+        assertThat(scheduler.inFlight()).isEqualTo(2);
+    }
+
+    /**
+     * Deja una petición del cliente esperando en su cola; al recibir lugar publica su etiqueta.
+     */
+    private Thread enqueue(FairRequestScheduler scheduler, String client, String label) throws InterruptedException {
+        int before = scheduler.waiting();
+        Thread thread = Thread.ofVirtual().start(() -> {
+            if (scheduler.acquire(client)) {
+                granted.add(label);
+            }
+        });
+        long deadline = System.nanoTime() + LONG_WAIT;
+        while (scheduler.waiting() == before) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+
+    private String nextGranted() throws InterruptedException {
+        return granted.poll(10, TimeUnit.SECONDS);
+    }
+}
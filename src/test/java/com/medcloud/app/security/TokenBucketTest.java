@@ -0,0 +1,44 @@
+package com.medcloud.app.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token bucket (GCRA) con instantes explícitos: ráfaga, reposición y espera indicada en el 429.
+ */
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRejectsWithRetryAfter() {
+        TokenBucket bucket = new TokenBucket(2, 3);
+        long now = 1_000 * SECOND;
+
+        assertThat(bucket.tryAcquire(now).remaining()).isEqualTo(2);
+        assertThat(bucket.tryAcquire(now).remaining()).isEqualTo(1);
+        assertThat(bucket.tryAcquire(now).remaining()).isZero();
+
+        TokenBucket.Decision rejected = bucket.tryAcquire(now);
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.retryAfterNanos()).isEqualTo(SECOND / 2);
+        assertThat(rejected.resetNanos()).isEqualTo(3 * SECOND / 2);
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(2, 3);
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            bucket.tryAcquire(now);
+        }
+
+        assertThat(bucket.tryAcquire(now + SECOND / 2).allowed()).isTrue();
+        assertThat(bucket.tryAcquire(now + SECOND / 2).allowed()).isFalse();
+        // Tras el tiempo de reposición completo vuelve a estar lleno, sin acumular más que burst.
+        assertThat(bucket.tryAcquire(now + 60 * SECOND).remaining()).isEqualTo(2);
+    }
+}